@@ -52,6 +52,112 @@ SELECT * FROM addresses;
 
 DESC addresses;
 
+-- SESSION LOGIN DIPINDAH DARI TABLE USERS, SATU BARIS PER TOKEN
+CREATE TABLE sessions
+(
+    token VARCHAR(100) NOT NULL ,
+    username VARCHAR(100) NOT NULL ,
+    expired_at BIGINT NOT NULL ,
+    PRIMARY KEY (token),
+    FOREIGN KEY fk_sessions_users (username) REFERENCES users(username) ON DELETE CASCADE
+)ENGINE InnoDB;
+
+INSERT INTO sessions (token, username, expired_at)
+SELECT token, username, token_expired_at FROM users WHERE token IS NOT NULL AND token_expired_at IS NOT NULL;
+
+ALTER TABLE users DROP COLUMN token, DROP COLUMN token_expired_at;
+
+CREATE INDEX idx_sessions_expired_at ON sessions (expired_at);
+
+-- LEASE UNTUK JOB TERJADWAL, SUPAYA HANYA SATU NODE YANG MENJALANKAN
+CREATE TABLE scheduler_leases
+(
+    name VARCHAR(100) NOT NULL ,
+    owner VARCHAR(100) NOT NULL ,
+    lease_until BIGINT NOT NULL ,
+    PRIMARY KEY (name)
+)ENGINE InnoDB;
+
+-- JUMLAH CONTACT DAN ADDRESS PER USER, SUPAYA LIST TANPA FILTER TIDAK PERLU COUNT(*)
+CREATE TABLE user_counters
+(
+    username VARCHAR(100) NOT NULL ,
+    contacts BIGINT NOT NULL DEFAULT 0 ,
+    addresses BIGINT NOT NULL DEFAULT 0 ,
+    PRIMARY KEY (username),
+    FOREIGN KEY fk_user_counters_users (username) REFERENCES users(username) ON DELETE CASCADE
+)ENGINE InnoDB;
+
+INSERT INTO user_counters (username, contacts, addresses)
+SELECT u.username,
+       (SELECT COUNT(*) FROM contacts c WHERE c.username = u.username),
+       (SELECT COUNT(*) FROM addresses a JOIN contacts c ON c.id = a.contact_id WHERE c.username = u.username)
+FROM users u;
+
+-- KOLOM NORMALIZED UNTUK PENCARIAN PREFIX (?match=prefix) : HURUF KECIL, TANPA AKSEN, NAMA DIPISAH SATU SPASI
+-- DIISI OLEH APLIKASI SAAT INSERT/UPDATE, DATA LAMA DIISI BERTAHAP OLEH ContactNormalizeBackfill
+ALTER TABLE contacts
+    ADD COLUMN last_name_normalized VARCHAR(100),
+    ADD COLUMN full_name_normalized VARCHAR(201),
+    ADD COLUMN email_normalized VARCHAR(100);
+
+CREATE INDEX idx_contacts_full_name_normalized ON contacts (username, full_name_normalized);
+CREATE INDEX idx_contacts_last_name_normalized ON contacts (username, last_name_normalized);
+CREATE INDEX idx_contacts_email_normalized ON contacts (username, email_normalized);
+
+-- PHONE DISIMPAN HANYA DIGIT (DENGAN "+" DI DEPAN JIKA ADA), phone_reversed ADALAH DIGITNYA DIBALIK
+-- PENCARIAN DARI DIGIT TERAKHIR MENJADI like 'digit terbalik%', DIISI BERTAHAP OLEH ContactNormalizeBackfill
+ALTER TABLE contacts
+    ADD COLUMN phone_reversed VARCHAR(100);
+
+CREATE INDEX idx_contacts_phone_reversed ON contacts (username, phone_reversed);
+
+-- FILTER ADDRESS PADA PENCARIAN CONTACT (?city=, ?province=, ?country=, ?postalCode=)
+-- contact_id IKUT DI INDEX SUPAYA SEMI JOIN KE contacts CUKUP DARI INDEX
+CREATE INDEX idx_addresses_city ON addresses (city, contact_id);
+CREATE INDEX idx_addresses_province ON addresses (province, contact_id);
+CREATE INDEX idx_addresses_country ON addresses (country, contact_id);
+CREATE INDEX idx_addresses_postal_code ON addresses (postal_code, contact_id);
+
+-- TAG CONTACT, ?tag= TANPA FILTER LAIN DILAYANI DARI BITMAP DI MEMORY (ContactTagIndex)
+CREATE TABLE contact_tags
+(
+    contact_id VARCHAR(100) NOT NULL ,
+    tag VARCHAR(50) NOT NULL ,
+    PRIMARY KEY (contact_id, tag),
+    FOREIGN KEY fk_contact_tags_contacts (contact_id) REFERENCES contacts(id) ON DELETE CASCADE
+)ENGINE InnoDB;
+
+-- VERSION UNTUK UPDATE DENGAN HEADER If-Match, NAIK SATU SETIAP UPDATE
+ALTER TABLE contacts
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE addresses
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- TOKEN SIGNED YANG SUDAH LOGOUT, DICEK SEMUA NODE SAAT TOKEN TIDAK ADA DI CACHE
+-- DIHAPUS OLEH SessionPurgeJob SETELAH TOKENNYA EXPIRED
+CREATE TABLE denied_tokens
+(
+    signature VARCHAR(100) NOT NULL ,
+    expired_at BIGINT NOT NULL ,
+    PRIMARY KEY (signature)
+)ENGINE InnoDB;
+
+CREATE INDEX idx_denied_tokens_expired_at ON denied_tokens (expired_at);
+
+SELECT * FROM sessions;
+
+DESC sessions;
+
+DELETE FROM denied_tokens;
+
+DELETE FROM contact_tags;
+
+DELETE FROM user_counters;
+
+DELETE FROM sessions;
+
 DELETE FROM addresses;
 
 DELETE FROM contacts;
@@ -0,0 +1,46 @@
+package programmer.restful.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import programmer.restful.security.BCrypt;
+
+import java.util.concurrent.TimeUnit;
+
+// JALANKAN : ./mvnw -Pjmh test-compile exec:exec -Djmh.args="BCryptBenchmark -prof gc"
+// HASIL ops/s DENGAN 1 THREAD = JUMLAH HASH PER DETIK PER CORE, gc.alloc.rate.norm = BYTE PER HASH
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BCryptBenchmark {
+
+    @Param({"4", "6", "8", "10", "12"})
+    public int logRounds;
+
+    private String salt;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        salt = BCrypt.gensalt(logRounds);
+        hash = BCrypt.hashpw("rahasia", salt);
+    }
+
+    @Benchmark
+    public String hashpw() {
+        return BCrypt.hashpw("rahasia", salt);
+    }
+
+    @Benchmark
+    public boolean checkpw() {
+        return BCrypt.checkpw("rahasia", hash);
+    }
+
+    @Benchmark
+    public String gensalt() {
+        return BCrypt.gensalt(logRounds);
+    }
+}
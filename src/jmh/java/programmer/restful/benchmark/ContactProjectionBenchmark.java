@@ -0,0 +1,149 @@
+package programmer.restful.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import programmer.restful.SpringResTfulApiApplication;
+import programmer.restful.entity.Contact;
+import programmer.restful.entity.User;
+import programmer.restful.model.ContactResponse;
+import programmer.restful.model.MatchMode;
+import programmer.restful.repository.ContactSearchQuery;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// SATU HALAMAN 1000 CONTACT : ENTITY LALU DISALIN KE ContactResponse (CARA LAMA) DIBANDINGKAN DENGAN SELECT new ContactResponse
+// entities         : TRANSAKSI BIASA, HIBERNATE MENYIMPAN SNAPSHOT DAN DIRTY CHECK SAAT COMMIT
+// readOnlyEntities : SEPERTI @Transactional(readOnly = true), TANPA SNAPSHOT TAPI TETAP MEMBUAT ENTITY DAN PROXY USER
+// projection       : HANYA OBJEK RESPONSE
+// BUTUH DATABASE DARI application.properties, DATA USER "benchmark" DIBUAT DI setUp DAN DIHAPUS DI tearDown
+// JALANKAN : ./mvnw -Pjmh test-compile exec:exec -Djmh.args="ContactProjectionBenchmark -prof gc"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContactProjectionBenchmark {
+
+    private static final String USERNAME = "benchmark";
+
+    private static final int PAGE_SIZE = 1000;
+
+    // ContactSearchQuery HANYA MEMBUAT PROJECTION, QUERY ENTITY CARA LAMA DITULIS DI SINI
+    private static final String ENTITIES = "select c from Contact c where c.user.username = :username order by c.id";
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private ContactSearchQuery query;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringResTfulApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--app.contact-index.enabled=false",
+                        "--app.session-purge.enabled=false",
+                        "--app.contact-backfill.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=warn");
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = ContactSearchQuery.of(USERNAME, MatchMode.CONTAINS, null, null, null);
+
+        entityManager.getTransaction().begin();
+        User user = entityManager.find(User.class, USERNAME);
+        if (user == null) {
+            user = new User();
+            user.setUsername(USERNAME);
+            user.setName(USERNAME);
+            user.setPassword(USERNAME);
+            entityManager.persist(user);
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                Contact contact = new Contact();
+                contact.setId(UUID.randomUUID().toString());
+                contact.setFirstName("Ibnu" + i);
+                contact.setLastName("Rabbani");
+                contact.setEmail("contact" + i + "@example.com");
+                contact.setPhone("0812" + i);
+                contact.setUser(user);
+                entityManager.persist(contact);
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("delete from Contact c where c.user.username = :username")
+                .setParameter("username", USERNAME)
+                .executeUpdate();
+        entityManager.createQuery("delete from User u where u.username = :username")
+                .setParameter("username", USERNAME)
+                .executeUpdate();
+        entityManager.getTransaction().commit();
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<ContactResponse> entities() {
+        entityManager.getTransaction().begin();
+        List<ContactResponse> responses = entityManager.createQuery(ENTITIES, Contact.class)
+                .setParameter("username", USERNAME)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList()
+                .stream()
+                .map(ContactProjectionBenchmark::toContactResponse)
+                .toList();
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        return responses;
+    }
+
+    @Benchmark
+    public List<ContactResponse> readOnlyEntities() {
+        entityManager.getTransaction().begin();
+        List<ContactResponse> responses = entityManager.createQuery(ENTITIES, Contact.class)
+                .setParameter("username", USERNAME)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList()
+                .stream()
+                .map(ContactProjectionBenchmark::toContactResponse)
+                .toList();
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        return responses;
+    }
+
+    @Benchmark
+    public List<ContactResponse> projection() {
+        entityManager.getTransaction().begin();
+        List<ContactResponse> responses = query.responses(entityManager)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        return responses;
+    }
+
+    private static ContactResponse toContactResponse(Contact contact) {
+        return ContactResponse.builder()
+                .id(contact.getId())
+                .firstName(contact.getFirstName())
+                .lastName(contact.getLastName())
+                .email(contact.getEmail())
+                .phone(contact.getPhone())
+                .build();
+    }
+}
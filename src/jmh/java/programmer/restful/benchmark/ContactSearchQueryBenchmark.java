@@ -0,0 +1,145 @@
+package programmer.restful.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import programmer.restful.SpringResTfulApiApplication;
+import programmer.restful.entity.Contact;
+import programmer.restful.entity.User;
+import programmer.restful.model.ContactResponse;
+import programmer.restful.model.MatchMode;
+import programmer.restful.repository.ContactSearchQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// CRITERIA YANG DIBANGUN ULANG SETIAP REQUEST (CARA LAMA) DIBANDINGKAN DENGAN JPQL DARI ContactSearchQuery
+// QUERY SQL DAN DATABASE-NYA SAMA, JADI SELISIH WAKTU DAN gc.alloc.rate.norm ADALAH BIAYA MENERJEMAHKAN QUERY
+// BUTUH DATABASE DARI application.properties, DATA USER "benchmark" DIBUAT DI setUp DAN DIHAPUS DI tearDown
+// JALANKAN : ./mvnw -Pjmh test-compile exec:exec -Djmh.args="ContactSearchQueryBenchmark -prof gc"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContactSearchQueryBenchmark {
+
+    private static final String USERNAME = "benchmark";
+
+    @Param({"name", "name,email,phone"})
+    public String filters;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private String name;
+
+    private String email;
+
+    private String phone;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringResTfulApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--app.contact-index.enabled=false",
+                        "--app.session-purge.enabled=false",
+                        "--app.contact-backfill.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=warn");
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+
+        name = "ib";
+        email = filters.contains("email") ? "example" : null;
+        phone = filters.contains("phone") ? "08" : null;
+
+        entityManager.getTransaction().begin();
+        User user = entityManager.find(User.class, USERNAME);
+        if (user == null) {
+            user = new User();
+            user.setUsername(USERNAME);
+            user.setName(USERNAME);
+            user.setPassword(USERNAME);
+            entityManager.persist(user);
+            for (int i = 0; i < 1000; i++) {
+                Contact contact = new Contact();
+                contact.setId(UUID.randomUUID().toString());
+                contact.setFirstName((i % 2 == 0 ? "Ibnu" : "Budi") + i);
+                contact.setLastName("Rabbani");
+                contact.setEmail("contact" + i + "@example.com");
+                contact.setPhone("0812" + i);
+                contact.setUser(user);
+                entityManager.persist(contact);
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("delete from Contact c where c.user.username = :username")
+                .setParameter("username", USERNAME)
+                .executeUpdate();
+        entityManager.createQuery("delete from User u where u.username = :username")
+                .setParameter("username", USERNAME)
+                .executeUpdate();
+        entityManager.getTransaction().commit();
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<ContactResponse> criteria() {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ContactResponse> query = builder.createQuery(ContactResponse.class);
+        Root<Contact> root = query.from(Contact.class);
+        query.select(builder.construct(ContactResponse.class, root.get("id"), root.get("firstName"), root.get("lastName"),
+                root.get("email"), root.get("phone"), root.get("version")));
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(builder.equal(root.get("user").get("username"), USERNAME));
+        if (name != null) {
+            predicates.add(builder.or(
+                    builder.like(root.get("firstName"), "%" + name + "%"),
+                    builder.like(root.get("lastName"), "%" + name + "%")
+            ));
+        }
+        if (email != null) {
+            predicates.add(builder.like(root.get("email"), "%" + email + "%"));
+        }
+        if (phone != null) {
+            predicates.add(builder.like(root.get("phone"), "%" + phone + "%"));
+        }
+        query.where(predicates.toArray(new Predicate[]{}));
+        query.orderBy(builder.asc(root.get("id")));
+
+        List<ContactResponse> contacts = entityManager.createQuery(query)
+                .setMaxResults(11)
+                .getResultList();
+        entityManager.clear();
+        return contacts;
+    }
+
+    @Benchmark
+    public List<ContactResponse> precompiled() {
+        List<ContactResponse> contacts = ContactSearchQuery.of(USERNAME, MatchMode.CONTAINS, name, email, phone)
+                .responses(entityManager)
+                .setMaxResults(11)
+                .getResultList();
+        entityManager.clear();
+        return contacts;
+    }
+}
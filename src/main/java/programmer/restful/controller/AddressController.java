@@ -1,13 +1,16 @@
 package programmer.restful.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import programmer.restful.entity.Address;
-import programmer.restful.entity.User;
 import programmer.restful.model.AddressResponse;
 import programmer.restful.model.CreateAddressRequest;
+import programmer.restful.model.MergePatch;
 import programmer.restful.model.UpdateAddressRequest;
+import programmer.restful.model.UserPrincipal;
 import programmer.restful.model.WebResponse;
 import programmer.restful.service.AddressService;
 
@@ -23,39 +26,55 @@ public class AddressController {
             path = "/api/contacts/{idContact}/addresses",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<AddressResponse> create(User user,
-                                               @RequestBody CreateAddressRequest request,
-                                               @PathVariable("idContact") String idContact) {
+    public ResponseEntity<WebResponse<AddressResponse>> create(UserPrincipal user,
+                                                               @RequestBody CreateAddressRequest request,
+                                                               @PathVariable("idContact") String idContact) {
         request.setIdContact(idContact);
         AddressResponse addressResponse = addressService.create(user, request);
-        return WebResponse.<AddressResponse>builder().data(addressResponse).build();
+        return ETags.ok(addressResponse, addressResponse.getVersion());
     }
 
     @GetMapping(
             path = "/api/contacts/{idContact}/addresses/{idAddress}",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<AddressResponse> get(User user,
+    public ResponseEntity<WebResponse<AddressResponse>> get(UserPrincipal user,
 
-                                            @PathVariable("idContact")String idContact,
-                                            @PathVariable("idAddress") String idAddress) {
+                                                            @PathVariable("idContact")String idContact,
+                                                            @PathVariable("idAddress") String idAddress) {
         AddressResponse response = addressService.get(user, idContact, idAddress);
-        return WebResponse.<AddressResponse>builder().data(response).build();
+        return ETags.ok(response, response.getVersion());
     }
 
     @PutMapping(
             path = "/api/contacts/{idContact}/addresses/{idAddress}",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<AddressResponse> update(User user,
-                                               @RequestBody UpdateAddressRequest request,
-                                               @PathVariable("idContact") String idContact,
-                                               @PathVariable("idAddress") String idAddress){
+    public ResponseEntity<WebResponse<AddressResponse>> update(UserPrincipal user,
+                                                               @RequestBody UpdateAddressRequest request,
+                                                               @PathVariable("idContact") String idContact,
+                                                               @PathVariable("idAddress") String idAddress,
+                                                               @RequestHeader(value = "If-Match", required = false) String ifMatch){
         request.setIdContact(idContact);
         request.setIdAddress(idAddress);
+        request.setVersion(ETags.version(ifMatch));
 
         AddressResponse addressResponse = addressService.update(user, request);
-        return WebResponse.<AddressResponse>builder().data(addressResponse).build();
+        return ETags.ok(addressResponse, addressResponse.getVersion());
+    }
+
+    @PatchMapping(
+            path = "/api/contacts/{idContact}/addresses/{idAddress}",
+            consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<WebResponse<AddressResponse>> patch(UserPrincipal user,
+                                                              @RequestBody JsonNode patch,
+                                                              @PathVariable("idContact") String idContact,
+                                                              @PathVariable("idAddress") String idAddress,
+                                                              @RequestHeader(value = "If-Match", required = false) String ifMatch){
+        AddressResponse addressResponse = addressService.patch(user, idContact, idAddress, patch, ETags.version(ifMatch));
+        return ETags.ok(addressResponse, addressResponse.getVersion());
     }
 
     @DeleteMapping(
@@ -63,7 +82,7 @@ public class AddressController {
             produces = MediaType.APPLICATION_JSON_VALUE,
             consumes = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<String> delete(User user,
+    public WebResponse<String> delete(UserPrincipal user,
                                                @PathVariable("idContact") String idContact,
                                                @PathVariable("idAddress") String idAddress){
         addressService.remove(user, idContact, idAddress);
@@ -74,7 +93,7 @@ public class AddressController {
             path = "/api/contacts/{idContact}/addresses",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<List<AddressResponse>> list(User user,
+    public WebResponse<List<AddressResponse>> list(UserPrincipal user,
                                   @PathVariable("idContact")String idContact){
         List<AddressResponse> list = addressService.list(user, idContact);
         return WebResponse.<List<AddressResponse>>builder().data(list).build();
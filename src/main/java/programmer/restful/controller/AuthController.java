@@ -1,12 +1,14 @@
 package programmer.restful.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import programmer.restful.entity.User;
 import programmer.restful.model.LoginUserRequest;
 import programmer.restful.model.TokenResponse;
+import programmer.restful.model.UserPrincipal;
 import programmer.restful.model.WebResponse;
+import programmer.restful.security.LoginRateLimiter;
 import programmer.restful.service.AuthService;
 
 @RestController
@@ -15,12 +17,18 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     @PostMapping(
             path = "/api/auth/login",
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<TokenResponse> login(@RequestBody LoginUserRequest request){
+    public WebResponse<TokenResponse> login(@RequestBody LoginUserRequest request, HttpServletRequest servletRequest){
+        // DITOLAK 429 SEBELUM PASSWORD DI-HASH
+        // DI BELAKANG PROXY TERPERCAYA getRemoteAddr() SUDAH BERISI IP CLIENT DARI X-Forwarded-For (server.tomcat.remoteip.*)
+        loginRateLimiter.check(request.getUsername(), servletRequest.getRemoteAddr());
         TokenResponse tokenResponse = authService.login(request);
         return WebResponse.<TokenResponse>builder().data(tokenResponse).build();
     }
@@ -29,7 +37,7 @@ public class AuthController {
             path = "/api/logout",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<String> logout(User user){
+    public WebResponse<String> logout(UserPrincipal user){
         authService.logout(user);
         return WebResponse.<String>builder().data("OK").build();
     }
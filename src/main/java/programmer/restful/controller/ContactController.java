@@ -1,10 +1,10 @@
 package programmer.restful.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import programmer.restful.entity.User;
 import programmer.restful.model.*;
 import programmer.restful.service.ContactService;
 
@@ -21,18 +21,18 @@ public class ContactController {
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<ContactResponse> create(User user,@RequestBody CreateContactRequest request) {
+    public ResponseEntity<WebResponse<ContactResponse>> create(UserPrincipal user,@RequestBody CreateContactRequest request) {
         ContactResponse contactResponse = contactService.create(user, request);
-        return WebResponse.<ContactResponse>builder().data(contactResponse).build();
+        return ETags.ok(contactResponse, contactResponse.getVersion());
     }
 
     @GetMapping(
             path = "/api/contacts/{idContact}",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<ContactResponse> get(User user,@PathVariable("idContact") String idContact) {
+    public ResponseEntity<WebResponse<ContactResponse>> get(UserPrincipal user,@PathVariable("idContact") String idContact) {
         ContactResponse contactResponse = contactService.get(user, idContact);
-        return WebResponse.<ContactResponse>builder().data(contactResponse).build();
+        return ETags.ok(contactResponse, contactResponse.getVersion());
     }
 
     @PutMapping(
@@ -40,20 +40,35 @@ public class ContactController {
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<ContactResponse> update(User user,
-                                               @RequestBody UpdateContactRequest request,
-                                               @PathVariable("idContact") String idContact) {
+    public ResponseEntity<WebResponse<ContactResponse>> update(UserPrincipal user,
+                                                               @RequestBody UpdateContactRequest request,
+                                                               @PathVariable("idContact") String idContact,
+                                                               @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         request.setId(idContact);
+        request.setVersion(ETags.version(ifMatch));
 
         ContactResponse contactResponse = contactService.update(user, request);
-        return WebResponse.<ContactResponse>builder().data(contactResponse).build();
+        return ETags.ok(contactResponse, contactResponse.getVersion());
+    }
+
+    @PatchMapping(
+            path = "/api/contacts/{idContact}",
+            consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<WebResponse<ContactResponse>> patch(UserPrincipal user,
+                                                              @RequestBody JsonNode patch,
+                                                              @PathVariable("idContact") String idContact,
+                                                              @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        ContactResponse contactResponse = contactService.patch(user, idContact, patch, ETags.version(ifMatch));
+        return ETags.ok(contactResponse, contactResponse.getVersion());
     }
 
     @DeleteMapping(
             path = "/api/contacts/{idContact}",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<String> delete(User user,@PathVariable("idContact") String idContact) {
+    public WebResponse<String> delete(UserPrincipal user,@PathVariable("idContact") String idContact) {
         contactService.delete(user, idContact);
         return WebResponse.<String>builder().data("OK").build();
     }
@@ -62,10 +77,19 @@ public class ContactController {
             path = "/api/contacts",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<List<ContactResponse>> search(User user,
+    public WebResponse<List<ContactResponse>> search(UserPrincipal user,
                                                     @RequestParam(value = "name", required = false) String name,
                                                     @RequestParam(value = "email", required = false) String email,
                                                     @RequestParam(value = "phone", required = false) String phone,
+                                                    @RequestParam(value = "city", required = false) String city,
+                                                    @RequestParam(value = "province", required = false) String province,
+                                                    @RequestParam(value = "country", required = false) String country,
+                                                    @RequestParam(value = "postalCode", required = false) String postalCode,
+                                                    @RequestParam(value = "tag", required = false) List<String> tags,
+                                                    @RequestParam(value = "tagMode", required = false, defaultValue = "all") String tagMode,
+                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                    @RequestParam(value = "total", required = false, defaultValue = "true") String total,
+                                                    @RequestParam(value = "match", required = false, defaultValue = "contains") String match,
                                                     @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
                                                     @RequestParam(value = "size", required = false, defaultValue = "10")Integer size) {
         SearchContactRequest searchContactRequest = SearchContactRequest.builder()
@@ -74,17 +98,40 @@ public class ContactController {
                 .name(name)
                 .email(email)
                 .phone(phone)
+                .city(city)
+                .province(province)
+                .country(country)
+                .postalCode(postalCode)
+                .tags(tags)
+                .tagMode(tagMode)
+                .cursor(cursor)
+                .total(total)
+                .match(match)
                 .build();
 
-        Page<ContactResponse> contactResponses = contactService.search(user, searchContactRequest);
+        CursorPage<ContactResponse> contactResponses = contactService.search(user, searchContactRequest);
         return WebResponse.<List<ContactResponse>>builder()
                 .data(contactResponses.getContent())
                 .paging(PagingResponse.builder()
-                        .totalPages(contactResponses.getTotalPages())
+                        .totalPages(contactResponses.isTotalKnown() ? contactResponses.getTotalPages() : null)
+                        .totalEstimated(contactResponses.isTotalKnown() ? contactResponses.isTotalEstimated() : null)
                         .size(contactResponses.getSize())
-                        .currentPage(contactResponses.getNumber())
+                        // MODE CURSOR TIDAK PUNYA NOMOR HALAMAN
+                        .currentPage(cursor == null ? contactResponses.getNumber() : null)
+                        .nextCursor(contactResponses.getNextCursor())
                         .build())
                 .build();
 
     }
+
+    @GetMapping(
+            path = "/api/contacts/suggest",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<List<ContactSuggestionResponse>> suggest(UserPrincipal user,
+                                                               @RequestParam(value = "q", required = false, defaultValue = "") String q,
+                                                               @RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit) {
+        List<ContactSuggestionResponse> suggestions = contactService.suggest(user, q, limit);
+        return WebResponse.<List<ContactSuggestionResponse>>builder().data(suggestions).build();
+    }
 }
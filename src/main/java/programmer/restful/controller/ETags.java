@@ -0,0 +1,40 @@
+package programmer.restful.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import programmer.restful.model.WebResponse;
+
+import java.util.Objects;
+
+// ETag CONTACT DAN ADDRESS ADALAH KOLOM version DALAM TANDA KUTIP, CONTOH "3"
+final class ETags {
+
+    private ETags() {
+    }
+
+    // GET DENGAN If-None-Match YANG SAMA DIJAWAB 304 OLEH SPRING
+    static <T> ResponseEntity<WebResponse<T>> ok(T data, Long version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (Objects.nonNull(version)) {
+            builder.eTag(version.toString());
+        }
+        return builder.body(WebResponse.<T>builder().data(data).build());
+    }
+
+    // null JIKA TANPA If-Match ATAU "*", HANYA SATU ETag YANG DITERIMA, SELAIN ITU PASTI TIDAK COCOK
+    static Long version(String ifMatch) {
+        if (Objects.isNull(ifMatch) || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            try {
+                return Long.parseLong(value.substring(1, value.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // DIJAWAB 412 DI BAWAH
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match the current version");
+    }
+}
@@ -0,0 +1,49 @@
+package programmer.restful.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import programmer.restful.model.UserPrincipal;
+import programmer.restful.model.WebResponse;
+import programmer.restful.service.TagService;
+
+import java.util.List;
+
+@RestController
+public class TagController {
+
+    @Autowired
+    private TagService tagService;
+
+    @GetMapping(
+            path = "/api/contacts/{idContact}/tags",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<List<String>> list(UserPrincipal user,
+                                          @PathVariable("idContact") String idContact) {
+        List<String> tags = tagService.list(user, idContact);
+        return WebResponse.<List<String>>builder().data(tags).build();
+    }
+
+    @PutMapping(
+            path = "/api/contacts/{idContact}/tags/{tag}",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<List<String>> add(UserPrincipal user,
+                                         @PathVariable("idContact") String idContact,
+                                         @PathVariable("tag") String tag) {
+        List<String> tags = tagService.add(user, idContact, tag);
+        return WebResponse.<List<String>>builder().data(tags).build();
+    }
+
+    @DeleteMapping(
+            path = "/api/contacts/{idContact}/tags/{tag}",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<String> remove(UserPrincipal user,
+                                      @PathVariable("idContact") String idContact,
+                                      @PathVariable("tag") String tag) {
+        tagService.remove(user, idContact, tag);
+        return WebResponse.<String>builder().data("OK").build();
+    }
+}
@@ -3,10 +3,10 @@ package programmer.restful.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import programmer.restful.entity.User;
 import programmer.restful.model.RegisterUserRequest;
 import programmer.restful.model.UpdateUserRequest;
 import programmer.restful.model.UserResponse;
+import programmer.restful.model.UserPrincipal;
 import programmer.restful.model.WebResponse;
 import programmer.restful.service.UserService;
 
@@ -31,7 +31,7 @@ public class UserController {
             path = "/api/users/current",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<UserResponse> get(User user){
+    public WebResponse<UserResponse> get(UserPrincipal user){
         UserResponse userResponse = userService.get(user);
         return WebResponse.<UserResponse>builder().data(userResponse).build();
     }
@@ -41,7 +41,7 @@ public class UserController {
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<UserResponse> update(User user, @RequestBody UpdateUserRequest request){
+    public WebResponse<UserResponse> update(UserPrincipal user, @RequestBody UpdateUserRequest request){
         UserResponse response = userService.update(user, request);
         return WebResponse.<UserResponse>builder().data(response).build();
     }
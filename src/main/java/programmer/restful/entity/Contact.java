@@ -4,13 +4,18 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+import programmer.restful.search.SearchNormalizer;
 
 import java.util.List;
 
+// UPDATE HANYA BERISI KOLOM YANG BERUBAH, LIHAT PATCH /api/contacts/{idContact}
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@DynamicUpdate
+@EntityListeners(ContactListener.class)
 @Table(name = "contacts")
 public class Contact {
 
@@ -27,10 +32,38 @@ public class Contact {
 
     private String phone;
 
-    @ManyToOne
+    // KOLOM PENCARIAN PREFIX, DIISI OTOMATIS SAAT INSERT/UPDATE, LIHAT SearchNormalizer
+    @Column(name = "last_name_normalized")
+    private String lastNameNormalized;
+
+    @Column(name = "full_name_normalized")
+    private String fullNameNormalized;
+
+    @Column(name = "email_normalized")
+    private String emailNormalized;
+
+    @Column(name = "phone_reversed")
+    private String phoneReversed;
+
+    // LAZY, getUser().getUsername() DIBACA DARI FOREIGN KEY DI PROXY TANPA SELECT KE TABLE USERS
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "username",referencedColumnName = "username")
     private User user;
 
+    // NAIK SETIAP UPDATE, DIKIRIM KE CLIENT SEBAGAI ETag DAN DICEK DARI HEADER If-Match
+    @Version
+    private Long version;
+
     @OneToMany(mappedBy = "contact")
     private List<Address> addresses;
+
+    @PrePersist
+    @PreUpdate
+    public void normalize() {
+        lastNameNormalized = SearchNormalizer.name(lastName);
+        fullNameNormalized = SearchNormalizer.fullName(firstName, lastName);
+        emailNormalized = SearchNormalizer.email(email);
+        phone = SearchNormalizer.phone(phone);
+        phoneReversed = SearchNormalizer.reversedDigits(phone);
+    }
 }
@@ -0,0 +1,40 @@
+package programmer.restful.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import programmer.restful.search.ContactIndex;
+import programmer.restful.search.ContactSuggester;
+import programmer.restful.search.ContactTagIndex;
+
+// @Lazy KARENA LISTENER DIBUAT SAAT EntityManagerFactory MASIH DIBUAT
+public class ContactListener {
+
+    @Lazy
+    @Autowired
+    private ContactIndex contactIndex;
+
+    @Lazy
+    @Autowired
+    private ContactSuggester contactSuggester;
+
+    @Lazy
+    @Autowired
+    private ContactTagIndex contactTagIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Contact contact) {
+        contactIndex.index(contact);
+        contactSuggester.put(contact);
+    }
+
+    @PostRemove
+    public void onRemove(Contact contact) {
+        contactIndex.remove(contact.getId());
+        contactSuggester.remove(contact);
+        contactTagIndex.remove(contact);
+    }
+}
@@ -0,0 +1,35 @@
+package programmer.restful.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// SATU BARIS PER TAG PER CONTACT, DIHAPUS OTOMATIS OLEH DATABASE SAAT CONTACT DIHAPUS
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(ContactTag.Key.class)
+@Table(name = "contact_tags")
+public class ContactTag {
+
+    @Id
+    @Column(name = "contact_id")
+    private String contactId;
+
+    @Id
+    private String tag;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+
+        private String contactId;
+
+        private String tag;
+    }
+}
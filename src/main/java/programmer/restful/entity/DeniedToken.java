@@ -0,0 +1,21 @@
+package programmer.restful.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// TOKEN SIGNED YANG SUDAH LOGOUT, DISIMPAN DI DATABASE SUPAYA BERLAKU DI SEMUA NODE
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "denied_tokens")
+public class DeniedToken {
+
+    @Id
+    private String signature;
+
+    @Column(name = "expired_at")
+    private Long expiredAt;
+}
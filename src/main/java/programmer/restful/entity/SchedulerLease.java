@@ -0,0 +1,22 @@
+package programmer.restful.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+
+    @Id
+    private String name;
+
+    private String owner;
+
+    @Column(name = "lease_until")
+    private Long leaseUntil;
+}
@@ -0,0 +1,48 @@
+package programmer.restful.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+// SATU BARIS PER TOKEN LOGIN, SATU USER BISA PUNYA BANYAK SESSION (BANYAK DEVICE)
+@Data
+@NoArgsConstructor
+@Entity
+@EntityListeners(SessionListener.class)
+@Table(name = "sessions")
+public class Session implements Persistable<String> {
+
+    @Id
+    private String token;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "username", referencedColumnName = "username")
+    private User user;
+
+    @Column(name = "expired_at")
+    private Long expiredAt;
+
+    // TOKEN DIBUAT SENDIRI, SUPAYA save() LANGSUNG INSERT TANPA SELECT DULU
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return token;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
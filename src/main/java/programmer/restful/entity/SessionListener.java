@@ -0,0 +1,36 @@
+package programmer.restful.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import programmer.restful.security.RejectedTokenCache;
+import programmer.restful.security.TokenBloomFilter;
+import programmer.restful.security.TokenCache;
+
+// @Lazy KARENA LISTENER DIBUAT SAAT EntityManagerFactory MASIH DIBUAT
+public class SessionListener {
+
+    @Lazy
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Lazy
+    @Autowired
+    private TokenBloomFilter tokenBloomFilter;
+
+    @Lazy
+    @Autowired
+    private RejectedTokenCache rejectedTokenCache;
+
+    @PostPersist
+    public void onSave(Session session) {
+        tokenBloomFilter.put(session.getToken());
+        rejectedTokenCache.remove(session.getToken());
+    }
+
+    @PostRemove
+    public void onRemove(Session session) {
+        tokenCache.invalidateAfterCommit(session.getToken());
+    }
+}
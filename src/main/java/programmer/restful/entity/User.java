@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigInteger;
 import java.util.List;
@@ -12,6 +13,8 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@DynamicUpdate
+@EntityListeners(UserListener.class)
 @Table(name = "users")
 public class User {
 
@@ -22,11 +25,6 @@ public class User {
 
     private String name;
 
-    private String token;
-
-    @Column(name = "token_expired_at")
-    private Long tokenExpiredAt;
-
     @OneToMany(mappedBy = "user")
     private List<Contact> contacts;
 }
@@ -0,0 +1,22 @@
+package programmer.restful.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// JUMLAH CONTACT DAN ADDRESS PER USER, DIUBAH DI TRANSAKSI YANG SAMA DENGAN CREATE/DELETE
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "user_counters")
+public class UserCounter {
+
+    @Id
+    private String username;
+
+    private Long contacts;
+
+    private Long addresses;
+}
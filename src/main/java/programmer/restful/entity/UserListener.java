@@ -0,0 +1,26 @@
+package programmer.restful.entity;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import programmer.restful.security.TokenCache;
+
+// @Lazy KARENA LISTENER DIBUAT SAAT EntityManagerFactory MASIH DIBUAT
+public class UserListener {
+
+    @Lazy
+    @Autowired
+    private TokenCache tokenCache;
+
+    // NAMA USER IKUT DISIMPAN DI CACHE TOKEN, JADI CACHE DIBUANG SETIAP USER BERUBAH
+    @PostUpdate
+    public void onUpdate(User user) {
+        tokenCache.invalidateUserAfterCommit(user.getUsername());
+    }
+
+    @PostRemove
+    public void onRemove(User user) {
+        tokenCache.invalidateUserAfterCommit(user.getUsername());
+    }
+}
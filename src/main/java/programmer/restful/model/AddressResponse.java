@@ -24,4 +24,6 @@ public class AddressResponse {
 
     private String postalCode;
 
+    private Long version;
+
 }
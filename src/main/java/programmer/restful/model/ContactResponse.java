@@ -21,4 +21,6 @@ public class ContactResponse {
 
     private String phone;
 
+    private Long version;
+
 }
@@ -0,0 +1,20 @@
+package programmer.restful.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ContactSuggestionResponse {
+
+    private String id;
+
+    private String firstName;
+
+    private String lastName;
+
+}
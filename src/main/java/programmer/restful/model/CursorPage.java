@@ -0,0 +1,26 @@
+package programmer.restful.model;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+// PAGE BIASA DITAMBAH CURSOR UNTUK MENGAMBIL HALAMAN BERIKUTNYA
+// total null = TIDAK DIHITUNG (?total=false), totalEstimated = TOTAL HANYA PERKIRAAN (?total=estimate)
+@Getter
+public class CursorPage<T> extends PageImpl<T> {
+
+    private final String nextCursor;
+
+    private final boolean totalKnown;
+
+    private final boolean totalEstimated;
+
+    public CursorPage(List<T> content, Pageable pageable, Long total, boolean totalEstimated, String nextCursor) {
+        super(content, pageable, total != null ? total : pageable.getOffset() + content.size());
+        this.nextCursor = nextCursor;
+        this.totalKnown = total != null;
+        this.totalEstimated = totalEstimated;
+    }
+}
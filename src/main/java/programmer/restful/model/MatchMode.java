@@ -0,0 +1,20 @@
+package programmer.restful.model;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// PARAMETER ?match= PADA PENCARIAN : contains = BAGIAN MANA SAJA, prefix = AWALAN (PAKAI INDEX DATABASE)
+public enum MatchMode {
+
+    CONTAINS, PREFIX;
+
+    public static MatchMode of(String value) {
+        if (value == null || value.equalsIgnoreCase("contains")) {
+            return CONTAINS;
+        }
+        if (value.equalsIgnoreCase("prefix")) {
+            return PREFIX;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Match must be contains or prefix");
+    }
+}
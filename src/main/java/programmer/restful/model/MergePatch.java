@@ -0,0 +1,50 @@
+package programmer.restful.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+
+// BODY JSON MERGE PATCH (RFC 7396) : FIELD YANG TIDAK ADA TETAP, FIELD BERNILAI null DIKOSONGKAN
+// DTO BIASA TIDAK BISA MEMBEDAKAN KEDUANYA, JADI BODY DIBACA SEBAGAI JsonNode
+public final class MergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private final JsonNode node;
+
+    private MergePatch(JsonNode node) {
+        this.node = node;
+    }
+
+    // HANYA OBJECT DENGAN FIELD YANG BOLEH DIUBAH, FIELD LAIN DITOLAK SUPAYA SALAH KETIK TIDAK DIABAIKAN DIAM-DIAM
+    public static MergePatch of(JsonNode node, Set<String> fields) {
+        if (Objects.isNull(node) || !node.isObject()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Patch must be a JSON object");
+        }
+        Iterator<String> names = node.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!fields.contains(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field " + name);
+            }
+            JsonNode value = node.get(name);
+            if (!value.isNull() && !value.isTextual()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field " + name + " must be a string or null");
+            }
+        }
+        return new MergePatch(node);
+    }
+
+    // NILAI DARI PATCH JIKA FIELD ADA (BISA null), current JIKA TIDAK ADA
+    public String text(String field, String current) {
+        if (!node.has(field)) {
+            return current;
+        }
+        JsonNode value = node.get(field);
+        return value.isNull() ? null : value.asText();
+    }
+}
@@ -15,5 +15,12 @@ public class PagingResponse {
 
     private Integer size;
 
+    // null JIKA ?total=false
     private Integer totalPages;
+
+    // true JIKA totalPages HANYA PERKIRAAN (?total=estimate)
+    private Boolean totalEstimated;
+
+    // null JIKA SUDAH HALAMAN TERAKHIR
+    private String nextCursor;
 }
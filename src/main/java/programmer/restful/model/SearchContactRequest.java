@@ -3,6 +3,8 @@ package programmer.restful.model;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -15,6 +17,30 @@ public class SearchContactRequest {
 
     private String email;
 
+    // FILTER ADDRESS, CONTACT MUNCUL JIKA SALAH SATU ADDRESS-NYA COCOK
+    private String city;
+
+    private String province;
+
+    private String country;
+
+    private String postalCode;
+
+    // CONTACT DENGAN TAG INI, DIGABUNG SESUAI tagMode
+    private List<String> tags;
+
+    // all ATAU any, LIHAT TagMode
+    private String tagMode;
+
+    // JIKA DIISI, page DIABAIKAN DAN HASIL DIMULAI SETELAH POSISI CURSOR
+    private String cursor;
+
+    // true, false ATAU estimate, LIHAT TotalMode
+    private String total;
+
+    // contains ATAU prefix, LIHAT MatchMode
+    private String match;
+
     @NotNull
     private Integer size;
 
@@ -0,0 +1,20 @@
+package programmer.restful.model;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// PARAMETER ?tagMode= PADA PENCARIAN : all = PUNYA SEMUA TAG (AND), any = PUNYA SALAH SATU TAG (OR)
+public enum TagMode {
+
+    ALL, ANY;
+
+    public static TagMode of(String value) {
+        if (value == null || value.equalsIgnoreCase("all")) {
+            return ALL;
+        }
+        if (value.equalsIgnoreCase("any")) {
+            return ANY;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tag mode must be all or any");
+    }
+}
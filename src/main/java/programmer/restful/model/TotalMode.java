@@ -0,0 +1,23 @@
+package programmer.restful.model;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// PARAMETER ?total= PADA PENCARIAN : true = HITUNG SEMUA, false = TIDAK DIHITUNG, estimate = DIHITUNG SAMPAI BATAS
+public enum TotalMode {
+
+    EXACT, NONE, ESTIMATE;
+
+    public static TotalMode of(String value) {
+        if (value == null || value.equalsIgnoreCase("true")) {
+            return EXACT;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return NONE;
+        }
+        if (value.equalsIgnoreCase("estimate")) {
+            return ESTIMATE;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Total must be true, false or estimate");
+    }
+}
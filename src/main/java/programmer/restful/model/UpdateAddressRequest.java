@@ -38,4 +38,8 @@ public class UpdateAddressRequest {
     @Size(max = 10)
     private String postalCode;
 
+    // DARI HEADER If-Match, null BERARTI UPDATE TANPA CEK VERSION
+    @JsonIgnore
+    private Long version;
+
 }
@@ -30,4 +30,8 @@ public class UpdateContactRequest {
 
     @Size(max = 100)
     private String phone;
+
+    // DARI HEADER If-Match, null BERARTI UPDATE TANPA CEK VERSION
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,18 @@
+package programmer.restful.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+// DATA USER YANG SEDANG LOGIN, HANYA KOLOM YANG DIBUTUHKAN (TANPA PASSWORD DAN CONTACTS)
+@Value
+@AllArgsConstructor
+public class UserPrincipal {
+
+    String username;
+
+    String name;
+
+    Long tokenExpiredAt;
+
+    String token;
+}
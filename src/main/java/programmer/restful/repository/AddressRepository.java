@@ -1,17 +1,43 @@
 package programmer.restful.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import programmer.restful.entity.Address;
-import programmer.restful.entity.Contact;
+import programmer.restful.model.AddressResponse;
 
 import java.util.List;
 import java.util.Optional;
 
+// SEMUA QUERY MENGECEK PEMILIK LEWAT contacts.username DI STATEMENT YANG SAMA, TANPA MEMUAT CONTACT DULU
 @Repository
 public interface AddressRepository extends JpaRepository<Address, String> {
 
-    Optional<Address> findFirstByContactAndId(Contact contact, String id);
+    @Query("select a from Address a where a.id = :id and a.contact.id = :contactId and a.contact.user.username = :username")
+    Optional<Address> findOwned(String username, String contactId, String id);
 
-    List<Address> findAllByContact(Contact contact);
+    @Query("select new programmer.restful.model.AddressResponse(a.id, a.street, a.city, a.country, a.province, a.postalCode, a.version) " +
+            "from Address a where a.id = :id and a.contact.id = :contactId and a.contact.user.username = :username")
+    Optional<AddressResponse> findResponse(String username, String contactId, String id);
+
+    @Query("select new programmer.restful.model.AddressResponse(a.id, a.street, a.city, a.country, a.province, a.postalCode, a.version) " +
+            "from Address a where a.contact.id = :contactId and a.contact.user.username = :username")
+    List<AddressResponse> findResponses(String username, String contactId);
+
+    // 0 BARIS BERARTI ADDRESS TIDAK ADA, BUKAN MILIK USER INI, ATAU version TIDAK SAMA (version null = TANPA CEK)
+    @Modifying
+    @Query(value = "update addresses a join contacts c on c.id = a.contact_id " +
+            "set a.street = :street, a.city = :city, a.province = :province, a.country = :country, a.postal_code = :postalCode, " +
+            "a.version = a.version + 1 " +
+            "where a.id = :id and a.contact_id = :contactId and c.username = :username and (:version is null or a.version = :version)", nativeQuery = true)
+    int updateOwned(String username, String contactId, String id, Long version,
+                    String street, String city, String province, String country, String postalCode);
+
+    @Modifying
+    @Query(value = "delete a from addresses a join contacts c on c.id = a.contact_id " +
+            "where a.id = :id and a.contact_id = :contactId and c.username = :username", nativeQuery = true)
+    int deleteOwned(String username, String contactId, String id);
+
+    boolean existsByIdAndContactIdAndContactUserUsername(String id, String contactId, String username);
 }
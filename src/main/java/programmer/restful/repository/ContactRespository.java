@@ -1,15 +1,51 @@
 package programmer.restful.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import programmer.restful.entity.Contact;
-import programmer.restful.entity.User;
+import programmer.restful.model.ContactResponse;
+import programmer.restful.model.ContactSuggestionResponse;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ContactRespository extends JpaRepository<Contact, String>, JpaSpecificationExecutor<Contact> {
+public interface ContactRespository extends JpaRepository<Contact, String>, ContactRespositoryCustom {
 
-    Optional<Contact> findFirstByUserAndId(User user, String id);
+    Optional<Contact> findFirstByUserUsernameAndId(String username, String id);
+
+    // KEYSET PAGING UNTUK REBUILD INDEX, SETIAP HALAMAN SAMA CEPATNYA
+    List<Contact> findByIdGreaterThanOrderById(String id, Limit limit);
+
+    boolean existsByUserUsernameAndId(String username, String id);
+
+    // ENDPOINT YANG HANYA MEMBACA LANGSUNG SELECT KE RESPONSE, TANPA ENTITY DI PERSISTENCE CONTEXT
+    @Query("select new programmer.restful.model.ContactResponse(c.id, c.firstName, c.lastName, c.email, c.phone, c.version) " +
+            "from Contact c where c.user.username = :username and c.id = :id")
+    Optional<ContactResponse> findResponseByUsernameAndId(String username, String id);
+
+    @Query("select new programmer.restful.model.ContactResponse(c.id, c.firstName, c.lastName, c.email, c.phone, c.version) " +
+            "from Contact c where c.user.username = :username and c.id in :ids")
+    List<ContactResponse> findResponsesByUsernameAndIdIn(String username, Collection<String> ids);
+
+    // HANYA KOLOM YANG DIPERLUKAN UNTUK SUGGEST, TANPA MEMUAT ENTITY
+    @Query("select new programmer.restful.model.ContactSuggestionResponse(c.id, c.firstName, c.lastName) from Contact c where c.user.username = :username")
+    List<ContactSuggestionResponse> findSuggestionsByUsername(String username);
+
+    // CONTACT LAMA YANG KOLOM *_normalized ATAU phone_reversed-NYA BELUM DIISI, LIHAT ContactNormalizeBackfill
+    @Query(value = "select * from contacts where full_name_normalized is null or (phone is not null and phone_reversed is null) limit :limit", nativeQuery = true)
+    List<Contact> findNotNormalized(int limit);
+
+    // TANPA MENAIKKAN version, ISI CONTACT YANG DILIHAT CLIENT TIDAK BERUBAH SEHINGGA If-Match LAMA TETAP BERLAKU
+    // 0 BARIS JIKA CONTACT SUDAH DIUBAH SEJAK DIBACA, SAVE ITU SUDAH MENGISI KOLOM INI. <=> KARENA version CONTACT LAMA BISA null
+    @Modifying
+    @Query(value = "update contacts set phone = :phone, last_name_normalized = :lastNameNormalized, " +
+            "full_name_normalized = :fullNameNormalized, email_normalized = :emailNormalized, phone_reversed = :phoneReversed " +
+            "where id = :id and version <=> :version", nativeQuery = true)
+    int updateNormalized(String id, Long version, String phone, String lastNameNormalized, String fullNameNormalized,
+                         String emailNormalized, String phoneReversed);
 }
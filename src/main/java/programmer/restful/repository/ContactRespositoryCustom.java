@@ -0,0 +1,22 @@
+package programmer.restful.repository;
+
+import programmer.restful.entity.Contact;
+import programmer.restful.model.ContactResponse;
+
+import java.util.List;
+
+public interface ContactRespositoryCustom {
+
+    // TANPA COUNT, URUT BERDASARKAN id, limit BIASANYA size + 1 UNTUK TAHU MASIH ADA HALAMAN BERIKUTNYA
+    List<ContactResponse> findResponses(ContactSearchQuery query, long offset, int limit);
+
+    // QUERY DIBATALKAN DI DATABASE JIKA LEBIH DARI timeoutMs
+    long countWithTimeout(ContactSearchQuery query, int timeoutMs);
+
+    // BERHENTI MENGHITUNG SETELAH cap BARIS, DIBATALKAN DI DATABASE JIKA LEBIH DARI timeoutMs
+    long countUpTo(ContactSearchQuery query, int cap, int timeoutMs);
+
+    // UPDATE TANPA SELECT DULU, KOLOM NORMALIZED SUDAH DIISI contact.normalize()
+    // 0 BARIS BERARTI CONTACT TIDAK ADA, BUKAN MILIK USER INI, ATAU version TIDAK SAMA (version null = TANPA CEK)
+    int update(String username, Contact contact, Long version);
+}
@@ -0,0 +1,66 @@
+package programmer.restful.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import programmer.restful.entity.Contact;
+import programmer.restful.model.ContactResponse;
+
+import java.util.List;
+
+public class ContactRespositoryCustomImpl implements ContactRespositoryCustom {
+
+    private static final String UPDATE = "update Contact c set c.firstName = :firstName, c.lastName = :lastName, " +
+            "c.email = :email, c.phone = :phone, c.lastNameNormalized = :lastNameNormalized, " +
+            "c.fullNameNormalized = :fullNameNormalized, c.emailNormalized = :emailNormalized, " +
+            "c.phoneReversed = :phoneReversed, c.version = c.version + 1 " +
+            "where c.id = :id and c.user.username = :username and (:version is null or c.version = :version)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ContactResponse> findResponses(ContactSearchQuery query, long offset, int limit) {
+        return query.responses(entityManager)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public int update(String username, Contact contact, Long version) {
+        return entityManager.createQuery(UPDATE)
+                .setParameter("firstName", contact.getFirstName())
+                .setParameter("lastName", contact.getLastName())
+                .setParameter("email", contact.getEmail())
+                .setParameter("phone", contact.getPhone())
+                .setParameter("lastNameNormalized", contact.getLastNameNormalized())
+                .setParameter("fullNameNormalized", contact.getFullNameNormalized())
+                .setParameter("emailNormalized", contact.getEmailNormalized())
+                .setParameter("phoneReversed", contact.getPhoneReversed())
+                .setParameter("id", contact.getId())
+                .setParameter("username", username)
+                .setParameter("version", version)
+                .executeUpdate();
+    }
+
+    @Override
+    public long countWithTimeout(ContactSearchQuery query, int timeoutMs) {
+        return query.count(entityManager)
+                .setHint("jakarta.persistence.query.timeout", timeoutMs)
+                .getSingleResult();
+    }
+
+    @Override
+    // BARIS KE-cap DICARI DENGAN limit cap-1, 1 : DATABASE MEMBACA PALING BANYAK cap BARIS DAN MENGIRIM SATU id
+    // JIKA ADA TOTAL MINIMAL cap, JIKA TIDAK ADA BARISNYA KURANG DARI cap SEHINGGA COUNT(*) JUGA MURAH
+    // BUKAN COUNT(*) DARI SUBQUERY, KOLOM ALIAS DERIVED TABLE DARI HIBERNATE TIDAK DITERIMA MARIADB
+    public long countUpTo(ContactSearchQuery query, int cap, int timeoutMs) {
+        boolean reachedCap = !query.ids(entityManager)
+                .setHint("jakarta.persistence.query.timeout", timeoutMs)
+                .setFirstResult(cap - 1)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+        return reachedCap ? cap : countWithTimeout(query, timeoutMs);
+    }
+}
@@ -0,0 +1,239 @@
+package programmer.restful.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import programmer.restful.model.ContactResponse;
+import programmer.restful.model.MatchMode;
+import programmer.restful.search.SearchNormalizer;
+
+import java.util.Collection;
+
+// FILTER PENCARIAN CONTACT. JPQL UNTUK SETIAP KOMBINASI FILTER DIBUAT SEKALI SAAT PERTAMA DIPAKAI,
+// NILAI FILTER HANYA DIKIRIM SEBAGAI PARAMETER. STRING JPQL YANG SAMA MEMBUAT HIBERNATE MEMAKAI ULANG
+// HASIL PARSE DAN SQL-NYA DARI QUERY PLAN CACHE, BERBEDA DENGAN CRITERIA YANG DITERJEMAHKAN ULANG SETIAP REQUEST
+public final class ContactSearchQuery {
+
+    private static final int NAME = 1;
+
+    private static final int EMAIL = 2;
+
+    private static final int PHONE = 4;
+
+    private static final int PREFIX = 8;
+
+    private static final int AFTER = 16;
+
+    private static final int CITY = 32;
+
+    private static final int PROVINCE = 64;
+
+    private static final int COUNTRY = 128;
+
+    private static final int POSTAL_CODE = 256;
+
+    private static final int ADDRESS = CITY | PROVINCE | COUNTRY | POSTAL_CODE;
+
+    private static final int TAG_ALL = 512;
+
+    private static final int TAG_ANY = 1024;
+
+    private static final int VARIANTS = 2048;
+
+    // DIISI SAAT PERTAMA DIPAKAI, JIKA DUA THREAD MENGISI BERSAMAAN HASILNYA SAMA
+    private static final String[] RESPONSES = new String[VARIANTS];
+
+    private static final String[] COUNT = new String[VARIANTS];
+
+    private static final String[] IDS = new String[VARIANTS];
+
+    private final int flags;
+
+    private final String username;
+
+    private final String name;
+
+    private final String email;
+
+    private final String phone;
+
+    private final String after;
+
+    private final String city;
+
+    private final String province;
+
+    private final String country;
+
+    private final String postalCode;
+
+    private final Collection<String> tags;
+
+    private ContactSearchQuery(int flags, String username, String name, String email, String phone, String after,
+                               String city, String province, String country, String postalCode, Collection<String> tags) {
+        this.flags = flags;
+        this.username = username;
+        this.name = name;
+        this.email = email;
+        this.phone = phone;
+        this.after = after;
+        this.city = city;
+        this.province = province;
+        this.country = country;
+        this.postalCode = postalCode;
+        this.tags = tags;
+    }
+
+    // TERM PENCARIAN SUDAH DALAM BENTUK YANG DISIMPAN, PHONE SUDAH HANYA DIGIT
+    public static ContactSearchQuery of(String username, MatchMode matchMode, String name, String email, String phone) {
+        int flags = 0;
+        if (matchMode == MatchMode.PREFIX) {
+            flags |= PREFIX;
+            // like 'abc%' PADA KOLOM NORMALIZED, MENJADI RANGE SCAN DI INDEX (username, *_normalized)
+            // NAMA YANG HANYA BERISI TANDA BACA KOSONG SETELAH DINORMALISASI, DIANGGAP TANPA FILTER NAMA
+            String normalized = SearchNormalizer.name(name);
+            name = normalized == null || normalized.isEmpty() ? null : escapeLike(normalized) + "%";
+            email = email == null ? null : escapeLike(SearchNormalizer.email(email)) + "%";
+            // PHONE DICARI DARI DIGIT TERAKHIR, like 'digit terbalik%' PADA INDEX (username, phone_reversed)
+            phone = phone == null ? null : escapeLike(new StringBuilder(phone).reverse().toString()) + "%";
+        } else {
+            name = name == null ? null : "%" + escapeLike(name) + "%";
+            email = email == null ? null : "%" + escapeLike(email) + "%";
+            phone = phone == null ? null : "%" + escapeLike(phone) + "%";
+        }
+        flags |= name == null ? 0 : NAME;
+        flags |= email == null ? 0 : EMAIL;
+        flags |= phone == null ? 0 : PHONE;
+        return new ContactSearchQuery(flags, username, name, email, phone, null, null, null, null, null, null);
+    }
+
+    // CONTACT YANG PUNYA MINIMAL SATU ADDRESS DENGAN SEMUA NILAI INI, NILAI HARUS SAMA PERSIS
+    public ContactSearchQuery address(String city, String province, String country, String postalCode) {
+        int address = (city == null ? 0 : CITY) | (province == null ? 0 : PROVINCE)
+                | (country == null ? 0 : COUNTRY) | (postalCode == null ? 0 : POSTAL_CODE);
+        return new ContactSearchQuery((flags & ~ADDRESS) | address, username, name, email, phone, after,
+                city, province, country, postalCode, tags);
+    }
+
+    // all = true : PUNYA SEMUA TAG, false : PUNYA SALAH SATU TAG. KOSONG ATAU null BERARTI TANPA FILTER TAG
+    public ContactSearchQuery tags(Collection<String> tags, boolean all) {
+        int tag = tags == null || tags.isEmpty() ? 0 : all ? TAG_ALL : TAG_ANY;
+        return new ContactSearchQuery((flags & ~(TAG_ALL | TAG_ANY)) | tag, username, name, email, phone, after,
+                city, province, country, postalCode, tag == 0 ? null : tags);
+    }
+
+    // KEYSET : id > after TANPA OFFSET
+    public ContactSearchQuery after(String id) {
+        return new ContactSearchQuery(flags | AFTER, username, name, email, phone, id,
+                city, province, country, postalCode, tags);
+    }
+
+    // KOLOM RESPONSE SAJA, HIBERNATE TIDAK MEMBUAT ENTITY, SNAPSHOT MAUPUN PROXY USER UNTUK SETIAP BARIS
+    public TypedQuery<ContactResponse> responses(EntityManager entityManager) {
+        String jpql = RESPONSES[flags];
+        if (jpql == null) {
+            jpql = RESPONSES[flags] = "select new programmer.restful.model.ContactResponse(c.id, c.firstName, c.lastName, c.email, c.phone, c.version)"
+                    + " from Contact c where " + where(flags) + " order by c.id";
+        }
+        return bind(entityManager.createQuery(jpql, ContactResponse.class));
+    }
+
+    public TypedQuery<Long> count(EntityManager entityManager) {
+        String jpql = COUNT[flags];
+        if (jpql == null) {
+            jpql = COUNT[flags] = "select count(c) from Contact c where " + where(flags);
+        }
+        return bind(entityManager.createQuery(jpql, Long.class));
+    }
+
+    public TypedQuery<String> ids(EntityManager entityManager) {
+        String jpql = IDS[flags];
+        if (jpql == null) {
+            jpql = IDS[flags] = "select c.id from Contact c where " + where(flags);
+        }
+        return bind(entityManager.createQuery(jpql, String.class));
+    }
+
+    private <T> TypedQuery<T> bind(TypedQuery<T> query) {
+        query.setParameter("username", username);
+        if ((flags & NAME) != 0) {
+            query.setParameter("name", name);
+        }
+        if ((flags & EMAIL) != 0) {
+            query.setParameter("email", email);
+        }
+        if ((flags & PHONE) != 0) {
+            query.setParameter("phone", phone);
+        }
+        if ((flags & AFTER) != 0) {
+            query.setParameter("after", after);
+        }
+        if ((flags & CITY) != 0) {
+            query.setParameter("city", city);
+        }
+        if ((flags & PROVINCE) != 0) {
+            query.setParameter("province", province);
+        }
+        if ((flags & COUNTRY) != 0) {
+            query.setParameter("country", country);
+        }
+        if ((flags & POSTAL_CODE) != 0) {
+            query.setParameter("postalCode", postalCode);
+        }
+        if ((flags & (TAG_ALL | TAG_ANY)) != 0) {
+            query.setParameter("tags", tags);
+        }
+        if ((flags & TAG_ALL) != 0) {
+            query.setParameter("tagCount", (long) tags.size());
+        }
+        return query;
+    }
+
+    private static String where(int flags) {
+        boolean prefix = (flags & PREFIX) != 0;
+        StringBuilder where = new StringBuilder("c.user.username = :username");
+        if ((flags & NAME) != 0) {
+            where.append(prefix
+                    ? " and (c.fullNameNormalized like :name escape '!' or c.lastNameNormalized like :name escape '!')"
+                    : " and (c.firstName like :name escape '!' or c.lastName like :name escape '!')");
+        }
+        if ((flags & EMAIL) != 0) {
+            where.append(prefix ? " and c.emailNormalized like :email escape '!'" : " and c.email like :email escape '!'");
+        }
+        if ((flags & PHONE) != 0) {
+            where.append(prefix ? " and c.phoneReversed like :phone escape '!'" : " and c.phone like :phone escape '!'");
+        }
+        if ((flags & ADDRESS) != 0) {
+            // SEMI JOIN, CONTACT DENGAN BEBERAPA ADDRESS YANG COCOK TETAP MUNCUL SEKALI DAN PAGING TETAP BENAR
+            where.append(" and exists (select 1 from Address a where a.contact = c");
+            if ((flags & CITY) != 0) {
+                where.append(" and a.city = :city");
+            }
+            if ((flags & PROVINCE) != 0) {
+                where.append(" and a.province = :province");
+            }
+            if ((flags & COUNTRY) != 0) {
+                where.append(" and a.country = :country");
+            }
+            if ((flags & POSTAL_CODE) != 0) {
+                where.append(" and a.postalCode = :postalCode");
+            }
+            where.append(")");
+        }
+        // TAG DI SQL HANYA UNTUK KOMBINASI DENGAN FILTER LAIN, TAG SAJA DILAYANI OLEH ContactTagIndex
+        // DIKORELASIKAN KE c.id SUPAYA MEMAKAI PRIMARY KEY (contact_id, tag) UNTUK SETIAP KANDIDAT
+        if ((flags & TAG_ALL) != 0) {
+            where.append(" and (select count(t) from ContactTag t where t.contactId = c.id and t.tag in :tags) = :tagCount");
+        }
+        if ((flags & TAG_ANY) != 0) {
+            where.append(" and exists (select 1 from ContactTag t where t.contactId = c.id and t.tag in :tags)");
+        }
+        if ((flags & AFTER) != 0) {
+            where.append(" and c.id > :after");
+        }
+        return where.toString();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,29 @@
+package programmer.restful.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import programmer.restful.entity.ContactTag;
+
+import java.util.List;
+
+@Repository
+public interface ContactTagRepository extends JpaRepository<ContactTag, ContactTag.Key> {
+
+    @Modifying
+    @Query(value = "insert ignore into contact_tags (contact_id, tag) values (:contactId, :tag)", nativeQuery = true)
+    int insertIfAbsent(String contactId, String tag);
+
+    @Modifying
+    @Query("delete from ContactTag t where t.contactId = :contactId and t.tag = :tag")
+    int deleteByContactIdAndTag(String contactId, String tag);
+
+    @Query("select t.tag from ContactTag t where t.contactId = :contactId order by t.tag")
+    List<String> findTagsByContactId(String contactId);
+
+    // SEMUA TAG MILIK USER UNTUK MEMBANGUN ContactTagIndex
+    @Query(value = "select t.contact_id, t.tag from contact_tags t join contacts c on c.id = t.contact_id " +
+            "where c.username = :username", nativeQuery = true)
+    List<Object[]> findAllByUsername(String username);
+}
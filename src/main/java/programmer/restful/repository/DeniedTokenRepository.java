@@ -0,0 +1,23 @@
+package programmer.restful.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import programmer.restful.entity.DeniedToken;
+
+@Repository
+public interface DeniedTokenRepository extends JpaRepository<DeniedToken, String> {
+
+    // LOGOUT DUA KALI DENGAN TOKEN YANG SAMA TIDAK GAGAL
+    @Modifying
+    @Query(value = "insert ignore into denied_tokens (signature, expired_at) values (:signature, :expiredAt)", nativeQuery = true)
+    int insertIfAbsent(String signature, Long expiredAt);
+
+    // DIPANGGIL PER CHUNK OLEH SessionPurgeJob, SETIAP CHUNK TRANSAKSI SENDIRI
+    @Transactional
+    @Modifying
+    @Query(value = "delete from denied_tokens where expired_at < :now limit :limit", nativeQuery = true)
+    int deleteExpired(Long now, int limit);
+}
@@ -0,0 +1,36 @@
+package programmer.restful.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import programmer.restful.entity.SchedulerLease;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into scheduler_leases (name, owner, lease_until) values (:name, '', 0)", nativeQuery = true)
+    int insertIfAbsent(String name);
+
+    // BERHASIL JIKA LEASE SUDAH HABIS ATAU MASIH DIPEGANG OWNER YANG SAMA
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLease l set l.owner = :owner, l.leaseUntil = :leaseUntil where l.name = :name and (l.leaseUntil < :now or l.owner = :owner)")
+    int tryAcquire(String name, String owner, Long now, Long leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLease l set l.leaseUntil = 0 where l.name = :name and l.owner = :owner")
+    int release(String name, String owner);
+
+    // LEASE PER NODE (BUKAN PER JOB), UNTUK TAHU BERAPA NODE YANG SEDANG JALAN
+    long countByNameStartingWithAndLeaseUntilGreaterThan(String prefix, Long now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SchedulerLease l where l.name like concat(:prefix, '%') and l.leaseUntil < :before")
+    int deleteExpired(String prefix, Long before);
+}
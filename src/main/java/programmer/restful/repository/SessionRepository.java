@@ -0,0 +1,44 @@
+package programmer.restful.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import programmer.restful.entity.Session;
+import programmer.restful.model.UserPrincipal;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SessionRepository extends JpaRepository<Session, String> {
+
+    @Query("select new programmer.restful.model.UserPrincipal(u.username, u.name, s.expiredAt, s.token) from Session s join s.user u where s.token = :token")
+    Optional<UserPrincipal> findPrincipalByToken(String token);
+
+    @Modifying
+    @Query("delete from Session s where s.token = :token and s.user.username = :username")
+    int deleteByUsernameAndToken(String username, String token);
+
+    // DIPANGGIL PER CHUNK, SETIAP CHUNK TRANSAKSI SENDIRI
+    @Transactional
+    @Modifying
+    @Query(value = "delete from sessions where expired_at < :now limit :limit", nativeQuery = true)
+    int deleteExpired(Long now, int limit);
+
+    // KEYSET PER token UNTUK MEMBANGUN BLOOM FILTER PER CHUNK, TIDAK SEMUA TOKEN SEKALIGUS DI MEMORY
+    @Query(value = "select token from sessions where expired_at > :now and token > :after order by token limit :limit", nativeQuery = true)
+    List<String> findLiveTokens(Long now, String after, int limit);
+
+    // SESSION BARU DARI NODE LAIN, KEYSET PER (expired_at, token) MEMAKAI INDEX idx_sessions_expired_at
+    @Query(value = "select token, expired_at from sessions where expired_at > :expiredAt or (expired_at = :expiredAt and token > :after) " +
+            "order by expired_at, token limit :limit", nativeQuery = true)
+    List<Object[]> findTokensExpiringAfter(Long expiredAt, String after, int limit);
+
+    @Query("select max(s.expiredAt) from Session s")
+    Optional<Long> findMaxExpiredAt();
+
+    @Query("select count(s) from Session s where s.expiredAt > :now")
+    long countLiveTokens(Long now);
+}
@@ -0,0 +1,21 @@
+package programmer.restful.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import programmer.restful.entity.UserCounter;
+
+import java.util.Optional;
+
+@Repository
+public interface UserCounterRepository extends JpaRepository<UserCounter, String> {
+
+    @Modifying
+    @Query(value = "insert into user_counters (username, contacts, addresses) values (:username, :contacts, :addresses) " +
+            "on duplicate key update contacts = contacts + :contacts, addresses = addresses + :addresses", nativeQuery = true)
+    int increment(String username, long contacts, long addresses);
+
+    @Query("select c.contacts from UserCounter c where c.username = :username")
+    Optional<Long> findContactsByUsername(String username);
+}
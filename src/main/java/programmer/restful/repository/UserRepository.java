@@ -1,7 +1,10 @@
 package programmer.restful.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import programmer.restful.entity.User;
 
 import java.util.Optional;
@@ -9,5 +12,12 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
 
-    Optional<User> findFirstByToken(String token);
+    @Query("select u.name from User u where u.username = :username")
+    Optional<String> findNameByUsername(String username);
+
+    // HANYA JIKA HASH BELUM DIGANTI REQUEST LAIN SELAMA BCRYPT BERJALAN
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.username = :username and u.password = :oldPassword")
+    int updatePassword(String username, String oldPassword, String password);
 }
@@ -1,45 +1,33 @@
 package programmer.restful.resolver;
 
-import jakarta.servlet.http.HttpServlet;
-import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
 import org.springframework.web.server.ResponseStatusException;
-import programmer.restful.entity.User;
-import programmer.restful.repository.UserRepository;
+import programmer.restful.model.UserPrincipal;
+import programmer.restful.security.AuthenticationFilter;
 
 @Component
 public class UserArgumenResolver implements HandlerMethodArgumentResolver {
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Override
     public boolean supportsParameter(MethodParameter parameter) {
-        return User.class.equals(parameter.getParameterType());
+        return UserPrincipal.class.equals(parameter.getParameterType());
     }
 
     @Override
     public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer, NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
-        HttpServletRequest servletRequest= (HttpServletRequest) webRequest.getNativeRequest();
-        String token = servletRequest.getHeader("X-API-TOKEN");
-        if (token == null) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Unauthorized");
-        }
-
-        User user = userRepository.findFirstByToken(token)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized"));
-
-        if (user.getTokenExpiredAt() < System.currentTimeMillis()) {
+        // TOKEN SUDAH DICEK DI AuthenticationFilter
+        Object principal = webRequest.getAttribute(AuthenticationFilter.PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (principal == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Unauthorized");
         }
 
-        return user;
+        return principal;
     }
 }
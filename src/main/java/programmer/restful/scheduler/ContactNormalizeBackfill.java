@@ -0,0 +1,92 @@
+package programmer.restful.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import programmer.restful.entity.Contact;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.search.ContactIndex;
+
+import java.util.List;
+
+// MENGISI KOLOM *_normalized DAN phone_reversed (SERTA MERAPIKAN phone) UNTUK CONTACT YANG DIBUAT SEBELUM KOLOM TERSEBUT ADA
+// PER CHUNK DENGAN TRANSAKSI SENDIRI, BERHENTI SETELAH TIDAK ADA LAGI YANG KOSONG
+// SELESAI ATAU BELUM DITENTUKAN QUERY KE DATABASE SETIAP JALAN, BUKAN FLAG DI MEMORY NODE INI
+@Slf4j
+@Component
+public class ContactNormalizeBackfill {
+
+    static final String LEASE_NAME = "contact-normalize-backfill";
+
+    @Autowired
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private SchedulerLock schedulerLock;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ContactIndex contactIndex;
+
+    @Value("${app.contact-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.contact-backfill.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.contact-backfill.lease-ms:600000}")
+    private long leaseMs;
+
+    @Scheduled(fixedDelayString = "${app.contact-backfill.interval-ms:60000}", initialDelayString = "${app.contact-backfill.initial-delay-ms:10000}")
+    public void run() {
+        if (!enabled || !schedulerLock.tryAcquire(LEASE_NAME, leaseMs)) {
+            return;
+        }
+        try {
+            backfill();
+        } finally {
+            schedulerLock.release(LEASE_NAME);
+        }
+    }
+
+    public int backfill() {
+        int total = 0;
+        while (true) {
+            // DIBACA DI LUAR TRANSAKSI, ENTITY SUDAH DETACHED SEHINGGA normalize() TIDAK MEMICU UPDATE YANG MENAIKKAN version
+            List<Contact> contacts = contactRespository.findNotNormalized(chunkSize);
+            if (contacts.isEmpty()) {
+                break;
+            }
+            contacts.forEach(Contact::normalize);
+
+            Integer updated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Contact contact : contacts) {
+                    if (contactRespository.updateNormalized(contact.getId(), contact.getVersion(), contact.getPhone(),
+                            contact.getLastNameNormalized(), contact.getFullNameNormalized(), contact.getEmailNormalized(),
+                            contact.getPhoneReversed()) == 1) {
+                        // phone BISA BERUBAH FORMAT, ContactListener TIDAK DIPANGGIL UNTUK UPDATE LEWAT QUERY
+                        contactIndex.index(contact);
+                        count++;
+                    }
+                }
+                return count;
+            });
+            total += updated;
+            // 0 BARIS BERARTI SEMUA CONTACT DI CHUNK INI SEDANG DIUBAH, DICOBA LAGI PADA JALAN BERIKUTNYA
+            if (contacts.size() < chunkSize || updated == 0) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Normalized search and phone columns of {} contacts", total);
+        }
+        return total;
+    }
+}
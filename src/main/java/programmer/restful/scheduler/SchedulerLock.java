@@ -0,0 +1,32 @@
+package programmer.restful.scheduler;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import programmer.restful.repository.SchedulerLeaseRepository;
+
+import java.util.UUID;
+
+// LOCK ANTAR NODE LEWAT TABLE scheduler_leases, SUPAYA JOB TERJADWAL HANYA JALAN DI SATU NODE
+// JIKA NODE PEMEGANG MATI, NODE LAIN MENGAMBIL ALIH SETELAH LEASE HABIS
+@Component
+public class SchedulerLock {
+
+    private final String owner = UUID.randomUUID().toString();
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    public boolean tryAcquire(String name, long leaseMs) {
+        schedulerLeaseRepository.insertIfAbsent(name);
+        long now = System.currentTimeMillis();
+        return schedulerLeaseRepository.tryAcquire(name, owner, now, now + leaseMs) == 1;
+    }
+
+    public void release(String name) {
+        schedulerLeaseRepository.release(name, owner);
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,96 @@
+package programmer.restful.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import programmer.restful.repository.DeniedTokenRepository;
+import programmer.restful.repository.SessionRepository;
+
+import java.util.concurrent.TimeUnit;
+
+// MENGHAPUS SESSION YANG SUDAH EXPIRED SEDIKIT DEMI SEDIKIT, SETIAP CHUNK TRANSAKSI SENDIRI
+// SUPAYA TIDAK ADA LOCK LAMA DI TABLE sessions, TOKEN SIGNED DI denied_tokens YANG SUDAH EXPIRED IKUT DIHAPUS
+@Slf4j
+@Component
+public class SessionPurgeJob {
+
+    static final String LEASE_NAME = "session-purge";
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private DeniedTokenRepository deniedTokenRepository;
+
+    @Autowired
+    private SchedulerLock schedulerLock;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.session-purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.session-purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.session-purge.max-chunks:100}")
+    private int maxChunks;
+
+    @Value("${app.session-purge.lease-ms:600000}")
+    private long leaseMs;
+
+    private Counter purged;
+
+    private Timer duration;
+
+    @PostConstruct
+    void init() {
+        purged = Counter.builder("session.purge.rows").register(meterRegistry);
+        duration = Timer.builder("session.purge.duration").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        schedulerLock.release(LEASE_NAME);
+    }
+
+    @Scheduled(fixedDelayString = "${app.session-purge.interval-ms:300000}", initialDelayString = "${app.session-purge.initial-delay-ms:60000}")
+    public void run() {
+        if (!enabled || !schedulerLock.tryAcquire(LEASE_NAME, leaseMs)) {
+            return;
+        }
+        purge();
+    }
+
+    public int purge() {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            int deleted = sessionRepository.deleteExpired(now, chunkSize);
+            total += deleted;
+            if (deleted < chunkSize) {
+                break;
+            }
+        }
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            if (deniedTokenRepository.deleteExpired(now, chunkSize) < chunkSize) {
+                break;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        purged.increment(total);
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Purged {} expired sessions in {} ms", total, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return total;
+    }
+}
@@ -0,0 +1,434 @@
+package programmer.restful.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.LockObtainFailedException;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import programmer.restful.entity.Contact;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.SchedulerLeaseRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+// INDEX LUCENE UNTUK PENCARIAN CONTACT, MENGGANTIKAN LIKE '%term%' YANG TIDAK BISA PAKAI INDEX MYSQL
+// SETIAP FIELD DISIMPAN 3 CARA : NILAI UTUH (EXACT/PREFIX), KATA (PREFIX/FUZZY), 3-GRAM (SUBSTRING)
+// INDEX ADA DI DISK MASING-MASING NODE DAN HANYA DIUBAH OLEH NODE ITU SENDIRI, JADI HANYA BENAR JIKA APLIKASI JALAN DI SATU NODE
+// SETIAP NODE MENDAFTAR DI scheduler_leases, JIKA ADA LEBIH DARI SATU NODE INDEX DIMATIKAN DAN PENCARIAN KEMBALI KE DATABASE
+// DIBANGUN ULANG DARI DATABASE SAAT STARTUP JIKA JUMLAHNYA TIDAK SAMA, FORMAT BERUBAH, ATAU SHUTDOWN SEBELUMNYA TIDAK BERSIH
+@Slf4j
+@Component
+public class ContactIndex {
+
+    private static final String ID = "id";
+
+    private static final String USERNAME = "username";
+
+    private static final String[] FIELDS = {"name", "email", "phone"};
+
+    private static final int GRAM = 3;
+
+    static final String NODE_LEASE_PREFIX = "contact-index-node:";
+
+    // DISIMPAN DI COMMIT USER DATA. clean=true HANYA DITULIS SAAT SHUTDOWN NORMAL,
+    // COMMIT BERKALA SELALU clean=false SEHINGGA CRASH (PERUBAHAN SETELAH COMMIT TERAKHIR HILANG) TERDETEKSI SAAT STARTUP
+    static final String COMMIT_CLEAN = "clean";
+
+    static final String COMMIT_FORMAT = "format";
+
+    // NAIKKAN JIKA ANALYZER ATAU ISI DOCUMENT BERUBAH, INDEX LAMA DIBANGUN ULANG
+    static final String FORMAT = "2";
+
+    // SATU PROSES SATU NODE, BEBERAPA CONTEXT SPRING DI PROSES YANG SAMA (TEST) DIHITUNG SEKALI
+    private static final String NODE = UUID.randomUUID().toString();
+
+    @Autowired
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @Value("${app.contact-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.contact-index.path:${java.io.tmpdir}/spring-restful-api/contact-index}")
+    private String path;
+
+    @Value("${app.contact-index.rebuild-chunk-size:1000}")
+    private int rebuildChunkSize;
+
+    @Value("${app.contact-index.node-lease-ms:30000}")
+    private long nodeLeaseMs;
+
+    // null JIKA app.contact-index.enabled=false, NODE SEPERTI ITU TIDAK IKUT DIHITUNG
+    private String nodeLease;
+
+    private Directory directory;
+
+    private IndexWriter writer;
+
+    private SearcherManager searcherManager;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // TETAP MENDAFTAR WALAUPUN INDEX NANTI GAGAL DIBUKA, KARENA NODE INI TETAP MENULIS CONTACT
+        nodeLease = NODE_LEASE_PREFIX + NODE;
+        boolean otherNodes = otherNodesRunning();
+
+        directory = FSDirectory.open(Path.of(path));
+        try {
+            writer = new IndexWriter(directory, new IndexWriterConfig(analyzer()));
+        } catch (LockObtainFailedException exception) {
+            // INDEX SEDANG DIPAKAI PROSES LAIN, PENCARIAN KEMBALI KE QUERY DATABASE
+            log.warn("Contact index at {} is locked, falling back to database search", path);
+            directory.close();
+            enabled = false;
+            return;
+        }
+        searcherManager = new SearcherManager(writer, null);
+
+        if (otherNodes) {
+            disable();
+            return;
+        }
+        String stale = staleReason();
+        if (stale != null) {
+            log.info("Contact index is {}, rebuilding from the database", stale);
+            rebuild();
+        } else {
+            // MULAI DARI SINI SHUTDOWN YANG TIDAK BERSIH HARUS MEMBANGUN ULANG
+            commit(false);
+        }
+    }
+
+    private String staleReason() throws IOException {
+        Map<String, String> commitData = new HashMap<>();
+        Iterable<Map.Entry<String, String>> live = writer.getLiveCommitData();
+        if (live != null) {
+            live.forEach(entry -> commitData.put(entry.getKey(), entry.getValue()));
+        }
+        if (!FORMAT.equals(commitData.get(COMMIT_FORMAT))) {
+            return "in an old format";
+        }
+        if (!Boolean.parseBoolean(commitData.get(COMMIT_CLEAN))) {
+            return "not closed cleanly";
+        }
+        if (writer.getDocStats().numDocs != contactRespository.count()) {
+            return "out of sync with the database count";
+        }
+        return null;
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (nodeLease != null) {
+            schedulerLeaseRepository.release(nodeLease, NODE);
+        }
+        if (writer == null) {
+            return;
+        }
+        searcherManager.close();
+        // INDEX YANG DIMATIKAN SUDAH DIKOSONGKAN, TETAP TIDAK BERSIH SUPAYA DIBANGUN ULANG
+        commit(enabled);
+        writer.close();
+        directory.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        writer.deleteAll();
+
+        String after = "";
+        List<Contact> contacts;
+        do {
+            contacts = contactRespository.findByIdGreaterThanOrderById(after, Limit.of(rebuildChunkSize));
+            for (Contact contact : contacts) {
+                writer.addDocument(toDocument(contact));
+            }
+            if (!contacts.isEmpty()) {
+                after = contacts.get(contacts.size() - 1).getId();
+            }
+        } while (contacts.size() == rebuildChunkSize);
+
+        commit(false);
+        searcherManager.maybeRefreshBlocking();
+        log.info("Rebuilt contact index with {} contacts in {} ms", writer.getDocStats().numDocs, System.currentTimeMillis() - start);
+    }
+
+    // DIPANGGIL DARI ContactListener, INDEX BARU DIUBAH SETELAH TRANSAKSI DATABASE COMMIT
+    public void index(Contact contact) {
+        if (!enabled) {
+            return;
+        }
+        Document document = toDocument(contact);
+        afterCommit(() -> writer.updateDocument(new Term(ID, contact.getId()), document));
+    }
+
+    public void remove(String id) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> writer.deleteDocuments(new Term(ID, id)));
+    }
+
+    // after = null UNTUK MODE OFFSET, JIKA DIISI HASIL DIMULAI SETELAH POSISI CURSOR (offset DIABAIKAN)
+    // countUpTo = BATAS MENGHITUNG TOTAL HIT, Integer.MAX_VALUE UNTUK TOTAL YANG PASTI
+    public Hits search(String username, String name, String email, String phone, SearchCursor after, int offset, int limit, int countUpTo) throws IOException {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USERNAME, username)), BooleanClause.Occur.FILTER);
+        Map<String, String> terms = new LinkedHashMap<>();
+        terms.put("name", name);
+        terms.put("email", email);
+        terms.put("phone", phone);
+        terms.forEach((field, value) -> {
+            if (value != null && !value.isEmpty()) {
+                builder.add(fieldQuery(field, normalize(value)), BooleanClause.Occur.MUST);
+            }
+        });
+
+        // PALING RELEVAN DULU, ID SEBAGAI PENENTU URUTAN SUPAYA PAGING STABIL
+        Sort sort = new Sort(SortField.FIELD_SCORE, new SortField(ID, SortField.Type.STRING));
+        FieldDoc afterDoc = null;
+        if (after != null) {
+            afterDoc = new FieldDoc(Integer.MAX_VALUE, after.score(), new Object[]{after.score(), new BytesRef(after.id())});
+            offset = 0;
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            // AMBIL SATU LEBIH UNTUK TAHU MASIH ADA HALAMAN BERIKUTNYA ATAU TIDAK
+            int numHits = offset + limit + 1;
+            TopDocs topDocs = searcher.search(builder.build(), new TopFieldCollectorManager(sort, numHits, afterDoc, countUpTo));
+
+            List<String> ids = new ArrayList<>();
+            SearchCursor last = null;
+            for (int i = offset; i < topDocs.scoreDocs.length && i < offset + limit; i++) {
+                FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+                String id = ((BytesRef) fieldDoc.fields[1]).utf8ToString();
+                ids.add(id);
+                last = new SearchCursor((Float) fieldDoc.fields[0], id);
+            }
+
+            String nextCursor = last != null && topDocs.scoreDocs.length > offset + limit ? last.encode() : null;
+            boolean exact = topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO;
+            return new Hits(ids, topDocs.totalHits.value, exact, nextCursor);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    // PERUBAHAN DARI NODE LAIN TIDAK PERNAH SAMPAI KE INDEX INI, JADI BEGITU ADA NODE LAIN INDEX DIMATIKAN
+    // SAMPAI NODE LAIN TERDETEKSI (PALING LAMA node-heartbeat-ms) PENCARIAN BISA MELEWATKAN PERUBAHAN DARI NODE ITU
+    @Scheduled(fixedDelayString = "${app.contact-index.node-heartbeat-ms:10000}")
+    public void heartbeat() throws IOException {
+        if (nodeLease == null) {
+            return;
+        }
+        if (otherNodesRunning() && enabled) {
+            disable();
+        }
+    }
+
+    private boolean otherNodesRunning() {
+        long now = System.currentTimeMillis();
+        schedulerLeaseRepository.insertIfAbsent(nodeLease);
+        schedulerLeaseRepository.tryAcquire(nodeLease, NODE, now, now + nodeLeaseMs);
+        schedulerLeaseRepository.deleteExpired(NODE_LEASE_PREFIX, now - nodeLeaseMs);
+        return schedulerLeaseRepository.countByNameStartingWithAndLeaseUntilGreaterThan(NODE_LEASE_PREFIX, now) > 1;
+    }
+
+    // ISI INDEX DIHAPUS SUPAYA SAAT STARTUP BERIKUTNYA DIBANGUN ULANG, BUKAN DIPAKAI DENGAN DATA LAMA
+    private synchronized void disable() throws IOException {
+        log.error("More than one node is running, contact index is disabled and search falls back to the database");
+        enabled = false;
+        writer.deleteAll();
+        commit(false);
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    @Scheduled(fixedDelayString = "${app.contact-index.commit-ms:5000}")
+    public void commit() throws IOException {
+        if (enabled && writer.hasUncommittedChanges()) {
+            commit(false);
+        }
+    }
+
+    private synchronized void commit(boolean clean) throws IOException {
+        writer.setLiveCommitData(Map.of(COMMIT_FORMAT, FORMAT, COMMIT_CLEAN, String.valueOf(clean)).entrySet());
+        writer.commit();
+    }
+
+    private Query fieldQuery(String field, String value) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(new BoostQuery(new TermQuery(new Term(field + "_exact", value)), 4), BooleanClause.Occur.SHOULD);
+        builder.add(new BoostQuery(new PrefixQuery(new Term(field + "_exact", value)), 2), BooleanClause.Occur.SHOULD);
+        builder.add(substringQuery(field, value), BooleanClause.Occur.SHOULD);
+
+        if (value.chars().allMatch(Character::isLetterOrDigit)) {
+            builder.add(new BoostQuery(new PrefixQuery(new Term(field + "_word", value)), 2), BooleanClause.Occur.SHOULD);
+            if (value.length() >= 4) {
+                builder.add(new FuzzyQuery(new Term(field + "_word", value), value.length() >= 8 ? 2 : 1), BooleanClause.Occur.SHOULD);
+            }
+        }
+        return builder.build();
+    }
+
+    // 3-GRAM YANG BERURUTAN = SUBSTRING, TERM PENDEK DICARI DENGAN WILDCARD DI NILAI UTUH
+    private Query substringQuery(String field, String value) {
+        if (value.length() < GRAM) {
+            return new WildcardQuery(new Term(field + "_exact", "*" + escapeWildcard(value) + "*"));
+        }
+        PhraseQuery.Builder builder = new PhraseQuery.Builder();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            builder.add(new Term(field + "_gram", value.substring(i, i + GRAM)), i);
+        }
+        return builder.build();
+    }
+
+    private Document toDocument(Contact contact) {
+        Document document = new Document();
+        document.add(new StringField(ID, contact.getId(), Field.Store.NO));
+        document.add(new SortedDocValuesField(ID, new BytesRef(contact.getId())));
+        document.add(new StringField(USERNAME, contact.getUser().getUsername(), Field.Store.NO));
+        addField(document, "name", contact.getFirstName());
+        addField(document, "name", contact.getLastName());
+        addField(document, "email", contact.getEmail());
+        addField(document, "phone", contact.getPhone());
+        return document;
+    }
+
+    private void addField(Document document, String field, String value) {
+        if (value == null) {
+            return;
+        }
+        String normalized = normalize(value);
+        document.add(new StringField(field + "_exact", normalized, Field.Store.NO));
+        document.add(new TextField(field + "_word", normalized, Field.Store.NO));
+        document.add(new TextField(field + "_gram", normalized, Field.Store.NO));
+    }
+
+    private void afterCommit(IndexOperation operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(operation);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(operation);
+            }
+        });
+    }
+
+    private void apply(IndexOperation operation) {
+        try {
+            operation.run();
+            // SUPAYA PERUBAHAN LANGSUNG TERLIHAT DI PENCARIAN BERIKUTNYA
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException exception) {
+            // DATABASE SUDAH COMMIT, INDEX AKAN DIPERBAIKI SAAT REBUILD BERIKUTNYA
+            log.error("Failed to update contact index", exception);
+        }
+    }
+
+    // HURUF KECIL DAN TANPA AKSEN SEPERTI COLLATION DATABASE, "José" SAMA DENGAN "jose"
+    private static String normalize(String value) {
+        char[] input = value.toLowerCase(Locale.ROOT).toCharArray();
+        char[] output = new char[input.length * 4];
+        int length = ASCIIFoldingFilter.foldToASCII(input, 0, output, 0, input.length);
+        return new String(output, 0, length);
+    }
+
+    private static String escapeWildcard(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '*' || c == '?' || c == '\\') {
+                builder.append('\\');
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static Analyzer analyzer() {
+        Analyzer gram = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = new NGramTokenizer(GRAM, GRAM);
+                return new TokenStreamComponents(tokenizer, fold(tokenizer));
+            }
+
+            // FIRST NAME DAN LAST NAME TIDAK BOLEH DIANGGAP BERSAMBUNG
+            @Override
+            public int getPositionIncrementGap(String fieldName) {
+                return 100;
+            }
+        };
+
+        Analyzer word = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = new StandardTokenizer();
+                return new TokenStreamComponents(tokenizer, fold(tokenizer));
+            }
+        };
+
+        Map<String, Analyzer> analyzers = new HashMap<>();
+        for (String field : FIELDS) {
+            analyzers.put(field + "_gram", gram);
+        }
+        return new PerFieldAnalyzerWrapper(word, analyzers);
+    }
+
+    private static TokenStream fold(Tokenizer tokenizer) {
+        return new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+    }
+
+    private interface IndexOperation {
+        void run() throws IOException;
+    }
+
+    public record Hits(List<String> ids, long total, boolean totalExact, String nextCursor) {
+    }
+}
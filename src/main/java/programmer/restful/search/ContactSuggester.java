@@ -0,0 +1,384 @@
+package programmer.restful.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import programmer.restful.entity.Contact;
+import programmer.restful.model.ContactSuggestionResponse;
+import programmer.restful.repository.ContactRespository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.UnaryOperator;
+
+// DATA UNTUK /api/contacts/suggest, DISIMPAN DI MEMORY PER USER SUPAYA SETIAP KETIKAN TIDAK QUERY KE DATABASE
+// DIMUAT SAAT USER PERTAMA KALI SUGGEST, USER YANG PALING LAMA TIDAK DIPAKAI DIBUANG JIKA MELEWATI BUDGET MEMORY
+// DATA DI MEMORY MASING-MASING NODE, PERUBAHAN DARI NODE LAIN BARU TERLIHAT SETELAH ttl-ms
+@Component
+public class ContactSuggester {
+
+    @Autowired
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.contact-suggest.memory-budget-mb:64}")
+    private long memoryBudgetMb;
+
+    @Value("${app.contact-suggest.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${app.contact-suggest.max-limit:20}")
+    private int maxLimit;
+
+    // accessOrder = true, URUTAN PALING LAMA DIAKSES DI DEPAN. SEMUA AKSES DI DALAM synchronized (users)
+    private final LinkedHashMap<String, Prefixes> users = new LinkedHashMap<>(16, 0.75f, true);
+
+    // HANYA UNTUK USER YANG SEDANG DIMUAT DARI DATABASE, SUGGEST LAIN YANG MISS MENUNGGU LOAD YANG SAMA
+    private final Map<String, Load> loading = new HashMap<>();
+
+    private long bytes;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    private Counter evictions;
+
+    @PostConstruct
+    void init() {
+        hits = Counter.builder("contact.suggest.hit").register(meterRegistry);
+        misses = Counter.builder("contact.suggest.miss").register(meterRegistry);
+        evictions = Counter.builder("contact.suggest.eviction").register(meterRegistry);
+        Gauge.builder("contact.suggest.users", this, suggester -> suggester.size())
+                .register(meterRegistry);
+        Gauge.builder("contact.suggest.bytes", this, suggester -> suggester.bytes)
+                .register(meterRegistry);
+    }
+
+    public List<ContactSuggestionResponse> suggest(String username, String query, int limit) {
+        String prefix = SearchNormalizer.name(query);
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Prefixes prefixes = get(username);
+        if (prefixes == null) {
+            misses.increment();
+            prefixes = load(username);
+        } else {
+            hits.increment();
+        }
+        return prefixes.find(prefix, Math.min(limit, maxLimit));
+    }
+
+    // DIPANGGIL DARI ContactListener, HANYA USER YANG SUDAH ADA DI MEMORY YANG DIUBAH
+    public void put(Contact contact) {
+        String username = contact.getUser().getUsername();
+        ContactSuggestionResponse suggestion = new ContactSuggestionResponse(contact.getId(), contact.getFirstName(), contact.getLastName());
+        afterCommit(() -> update(username, prefixes -> prefixes.with(suggestion)));
+    }
+
+    public void remove(Contact contact) {
+        String username = contact.getUser().getUsername();
+        String id = contact.getId();
+        afterCommit(() -> update(username, prefixes -> prefixes.without(id)));
+    }
+
+    private Prefixes get(String username) {
+        synchronized (users) {
+            Prefixes prefixes = users.get(username);
+            if (prefixes != null && prefixes.loadedAt + ttlMs < System.currentTimeMillis()) {
+                bytes -= prefixes.bytes;
+                users.remove(username);
+                return null;
+            }
+            return prefixes;
+        }
+    }
+
+    // SATU LOAD PER USER, MISS YANG BERSAMAAN MEMAKAI HASIL YANG SAMA
+    // PERUBAHAN YANG COMMIT SAAT DATA SEDANG DIMUAT BELUM TENTU TERBACA, HASIL LOAD ITU DIPAKAI SEKALI SAJA TANPA DISIMPAN
+    private Prefixes load(String username) {
+        Load load = new Load();
+        Load running;
+        synchronized (users) {
+            running = loading.putIfAbsent(username, load);
+        }
+        if (running != null) {
+            try {
+                return running.result.join();
+            } catch (CompletionException exception) {
+                if (exception.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw exception;
+            }
+        }
+
+        Prefixes prefixes = null;
+        try {
+            prefixes = Prefixes.of(contactRespository.findSuggestionsByUsername(username), System.currentTimeMillis());
+            return prefixes;
+        } finally {
+            synchronized (users) {
+                loading.remove(username, load);
+                if (prefixes != null && !load.changed) {
+                    put(username, prefixes);
+                }
+            }
+            if (prefixes != null) {
+                load.result.complete(prefixes);
+            } else {
+                load.result.completeExceptionally(new IllegalStateException("Contact suggestions failed to load"));
+            }
+        }
+    }
+
+    // DATA BARU DIBANGUN DI LUAR LOCK, LALU DIPASANG HANYA JIKA BELUM DIUBAH THREAD LAIN
+    private void update(String username, UnaryOperator<Prefixes> change) {
+        synchronized (users) {
+            // LOAD YANG SEDANG BERJALAN TIDAK DIBAGI LAGI, MISS BERIKUTNYA MEMUAT ULANG
+            Load load = loading.remove(username);
+            if (load != null) {
+                load.changed = true;
+            }
+        }
+        while (true) {
+            Prefixes current;
+            synchronized (users) {
+                current = users.get(username);
+            }
+            if (current == null) {
+                return;
+            }
+
+            Prefixes next = change.apply(current);
+            synchronized (users) {
+                if (users.get(username) == current) {
+                    put(username, next);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void put(String username, Prefixes prefixes) {
+        Prefixes old = users.put(username, prefixes);
+        bytes += prefixes.bytes - (old == null ? 0 : old.bytes);
+
+        long budget = memoryBudgetMb * 1024 * 1024;
+        Iterator<Map.Entry<String, Prefixes>> eldest = users.entrySet().iterator();
+        while (bytes > budget && users.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, Prefixes> entry = eldest.next();
+            if (entry.getKey().equals(username)) {
+                continue;
+            }
+            bytes -= entry.getValue().bytes;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private int size() {
+        synchronized (users) {
+            return users.size();
+        }
+    }
+
+    private void afterCommit(Runnable operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            operation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                operation.run();
+            }
+        });
+    }
+
+    private static final class Load {
+
+        private final CompletableFuture<Prefixes> result = new CompletableFuture<>();
+
+        private boolean changed;
+    }
+
+    // PENGGANTI TRIE YANG LEBIH HEMAT : SEMUA KEY DIURUTKAN DALAM SATU ARRAY,
+    // KEY DENGAN AWALAN YANG SAMA SELALU BERDEKATAN SEHINGGA CUKUP BINARY SEARCH LALU BACA BERURUTAN
+    // SETIAP CONTACT PUNYA SATU KEY PER KATA : "ibnu rabbani" DAN "rabbani"
+    // PERUBAHAN SATU CONTACT TIDAK MENGURUTKAN ULANG, KEY-NYA DISISIPKAN / DIBUANG DENGAN System.arraycopy
+    private static final class Prefixes {
+
+        private final String[] keys;
+
+        private final ContactSuggestionResponse[] owners;
+
+        private final long loadedAt;
+
+        private final long bytes;
+
+        private Prefixes(String[] keys, ContactSuggestionResponse[] owners, long loadedAt, long bytes) {
+            this.keys = keys;
+            this.owners = owners;
+            this.loadedAt = loadedAt;
+            this.bytes = bytes;
+        }
+
+        static Prefixes of(Collection<ContactSuggestionResponse> contacts, long loadedAt) {
+            Map<String, ContactSuggestionResponse> byId = new HashMap<>();
+            for (ContactSuggestionResponse contact : contacts) {
+                byId.put(contact.getId(), contact);
+            }
+
+            List<Map.Entry<String, ContactSuggestionResponse>> entries = new ArrayList<>();
+            long size = 0;
+            for (ContactSuggestionResponse contact : byId.values()) {
+                size += bytes(contact);
+                for (String key : keys(contact)) {
+                    entries.add(Map.entry(key, contact));
+                }
+            }
+            entries.sort(Map.Entry.<String, ContactSuggestionResponse>comparingByKey()
+                    .thenComparing(entry -> entry.getValue().getId(), Comparator.naturalOrder()));
+
+            String[] keys = new String[entries.size()];
+            ContactSuggestionResponse[] owners = new ContactSuggestionResponse[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                keys[i] = entries.get(i).getKey();
+                owners[i] = entries.get(i).getValue();
+            }
+            return new Prefixes(keys, owners, loadedAt, size);
+        }
+
+        Prefixes with(ContactSuggestionResponse contact) {
+            Prefixes base = without(contact.getId());
+            List<String> added = keys(contact);
+            String[] nextKeys = new String[base.keys.length + added.size()];
+            ContactSuggestionResponse[] nextOwners = new ContactSuggestionResponse[nextKeys.length];
+
+            // KEY BARU SUDAH URUT, POSISI SISIPNYA DI ARRAY LAMA JUGA URUT
+            int from = 0;
+            int to = 0;
+            for (String key : added) {
+                int index = base.index(key, contact.getId());
+                System.arraycopy(base.keys, from, nextKeys, to, index - from);
+                System.arraycopy(base.owners, from, nextOwners, to, index - from);
+                to += index - from;
+                nextKeys[to] = key;
+                nextOwners[to] = contact;
+                to++;
+                from = index;
+            }
+            System.arraycopy(base.keys, from, nextKeys, to, base.keys.length - from);
+            System.arraycopy(base.owners, from, nextOwners, to, base.keys.length - from);
+            return new Prefixes(nextKeys, nextOwners, loadedAt, base.bytes + bytes(contact));
+        }
+
+        Prefixes without(String id) {
+            ContactSuggestionResponse removed = null;
+            int count = 0;
+            for (ContactSuggestionResponse owner : owners) {
+                if (owner.getId().equals(id)) {
+                    removed = owner;
+                    count++;
+                }
+            }
+            if (removed == null) {
+                return this;
+            }
+
+            String[] nextKeys = new String[keys.length - count];
+            ContactSuggestionResponse[] nextOwners = new ContactSuggestionResponse[nextKeys.length];
+            int from = 0;
+            int to = 0;
+            for (String key : keys(removed)) {
+                int index = index(key, id);
+                System.arraycopy(keys, from, nextKeys, to, index - from);
+                System.arraycopy(owners, from, nextOwners, to, index - from);
+                to += index - from;
+                from = index + 1;
+            }
+            System.arraycopy(keys, from, nextKeys, to, keys.length - from);
+            System.arraycopy(owners, from, nextOwners, to, keys.length - from);
+            return new Prefixes(nextKeys, nextOwners, loadedAt, bytes - bytes(removed));
+        }
+
+        List<ContactSuggestionResponse> find(String prefix, int limit) {
+            int index = Arrays.binarySearch(keys, prefix);
+            if (index < 0) {
+                index = -index - 1;
+            }
+
+            // SATU CONTACT BISA COCOK LEWAT LEBIH DARI SATU KATA, CUKUP MUNCUL SEKALI
+            Map<String, ContactSuggestionResponse> found = new LinkedHashMap<>();
+            for (int i = index; i < keys.length && found.size() < limit && keys[i].startsWith(prefix); i++) {
+                found.putIfAbsent(owners[i].getId(), owners[i]);
+            }
+            return List.copyOf(found.values());
+        }
+
+        // POSISI PERTAMA YANG TIDAK LEBIH KECIL DARI (key, id), URUTAN SAMA DENGAN SAAT DIBANGUN
+        private int index(String key, String id) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int compare = keys[middle].compareTo(key);
+                if (compare == 0) {
+                    compare = owners[middle].getId().compareTo(id);
+                }
+                if (compare < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        // DIURUTKAN SUPAYA POSISI SISIP / BUANG DI with DAN without SELALU MAJU
+        private static List<String> keys(ContactSuggestionResponse contact) {
+            String name = SearchNormalizer.fullName(contact.getFirstName(), contact.getLastName());
+            List<String> keys = new ArrayList<>();
+            for (int start = 0; start < name.length(); start = name.indexOf(' ', start) + 1) {
+                keys.add(name.substring(start));
+                if (name.indexOf(' ', start) < 0) {
+                    break;
+                }
+            }
+            keys.sort(Comparator.naturalOrder());
+            return keys;
+        }
+
+        private static long bytes(ContactSuggestionResponse contact) {
+            long size = 64 + length(contact.getId()) + length(contact.getFirstName()) + length(contact.getLastName());
+            for (String key : keys(contact)) {
+                size += 56 + key.length();
+            }
+            return size;
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : 40 + value.length();
+        }
+    }
+}
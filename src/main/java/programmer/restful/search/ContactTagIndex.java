@@ -0,0 +1,387 @@
+package programmer.restful.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import programmer.restful.entity.Contact;
+import programmer.restful.repository.ContactTagRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+// TAG PER USER DALAM BENTUK ROARING BITMAP, ?tag=a&tag=b CUKUP AND/OR BITMAP TANPA JOIN KE DATABASE
+// SETIAP CONTACT YANG PUNYA TAG MENDAPAT NOMOR (ORDINAL) PER USER, URUT BERDASARKAN id SAAT DIMUAT
+// CONTACT YANG BARU DIBERI TAG SETELAH DIMUAT MENDAPAT ORDINAL DI BELAKANG (TAIL), JIKA TAIL TERLALU PANJANG DIMUAT ULANG
+// DATA DI MEMORY MASING-MASING NODE, PERUBAHAN DARI NODE LAIN BARU TERLIHAT SETELAH ttl-ms
+@Component
+public class ContactTagIndex {
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    @Autowired
+    private ContactTagRepository contactTagRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.contact-tags.memory-budget-mb:64}")
+    private long memoryBudgetMb;
+
+    @Value("${app.contact-tags.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${app.contact-tags.max-tail:1024}")
+    private int maxTail;
+
+    // accessOrder = true, URUTAN PALING LAMA DIAKSES DI DEPAN. SEMUA AKSES DI DALAM synchronized (users)
+    private final LinkedHashMap<String, UserTags> users = new LinkedHashMap<>(16, 0.75f, true);
+
+    // HANYA UNTUK USER YANG SEDANG DIMUAT DARI DATABASE, NAIK SETIAP ADA PERUBAHAN SELAMA DIMUAT
+    private final Map<String, Generation> loading = new HashMap<>();
+
+    private long bytes;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    private Counter evictions;
+
+    @PostConstruct
+    void init() {
+        hits = Counter.builder("contact.tags.hit").register(meterRegistry);
+        misses = Counter.builder("contact.tags.miss").register(meterRegistry);
+        evictions = Counter.builder("contact.tags.eviction").register(meterRegistry);
+        Gauge.builder("contact.tags.users", this, index -> index.size())
+                .register(meterRegistry);
+        Gauge.builder("contact.tags.bytes", this, index -> index.bytes)
+                .register(meterRegistry);
+    }
+
+    // all = true UNTUK AND (SEMUA TAG), false UNTUK OR (SALAH SATU TAG). HASIL URUT BERDASARKAN id
+    // after = null UNTUK MODE OFFSET, JIKA DIISI HASIL DIMULAI SETELAH id TERSEBUT (offset DIABAIKAN)
+    public Hits search(String username, Collection<String> tags, boolean all, String after, long offset, int limit) {
+        UserTags userTags = get(username);
+        if (userTags == null) {
+            misses.increment();
+            userTags = load(username);
+        } else {
+            hits.increment();
+        }
+        return userTags.search(tags, all, after, after == null ? offset : 0, limit);
+    }
+
+    // DIPANGGIL SETELAH TAG DITAMBAH/DIHAPUS DI DATABASE, HANYA USER YANG SUDAH ADA DI MEMORY YANG DIUBAH
+    public void tag(String username, String contactId, String tag) {
+        afterCommit(() -> update(username, userTags -> userTags.with(contactId, tag, maxTail)));
+    }
+
+    public void untag(String username, String contactId, String tag) {
+        afterCommit(() -> update(username, userTags -> userTags.without(contactId, tag)));
+    }
+
+    // DIPANGGIL DARI ContactListener, BARIS contact_tags SUDAH DIHAPUS OLEH DATABASE (ON DELETE CASCADE)
+    public void remove(Contact contact) {
+        String username = contact.getUser().getUsername();
+        String contactId = contact.getId();
+        afterCommit(() -> update(username, userTags -> userTags.without(contactId)));
+    }
+
+    private UserTags get(String username) {
+        synchronized (users) {
+            UserTags userTags = users.get(username);
+            if (userTags != null && userTags.loadedAt + ttlMs < System.currentTimeMillis()) {
+                bytes -= userTags.bytes;
+                users.remove(username);
+                return null;
+            }
+            return userTags;
+        }
+    }
+
+    // TAG YANG COMMIT SAAT DATA SEDANG DIMUAT BELUM TENTU TERBACA, HASIL LOAD ITU DIPAKAI SEKALI SAJA TANPA DISIMPAN
+    private UserTags load(String username) {
+        Generation generation;
+        long seen;
+        synchronized (users) {
+            generation = loading.computeIfAbsent(username, key -> new Generation());
+            generation.loaders++;
+            seen = generation.value;
+        }
+        UserTags userTags = null;
+        try {
+            userTags = UserTags.load(contactTagRepository.findAllByUsername(username), System.currentTimeMillis());
+            return userTags;
+        } finally {
+            synchronized (users) {
+                if (--generation.loaders == 0) {
+                    loading.remove(username);
+                }
+                if (userTags != null && generation.value == seen) {
+                    put(username, userTags);
+                }
+            }
+        }
+    }
+
+    // DATA BARU DIBANGUN DI LUAR LOCK, LALU DIPASANG HANYA JIKA BELUM DIUBAH THREAD LAIN
+    // change MENGEMBALIKAN null JIKA DATA USER LEBIH BAIK DIMUAT ULANG DARI DATABASE
+    private void update(String username, UnaryOperator<UserTags> change) {
+        synchronized (users) {
+            Generation generation = loading.get(username);
+            if (generation != null) {
+                generation.value++;
+            }
+        }
+        while (true) {
+            UserTags current;
+            synchronized (users) {
+                current = users.get(username);
+            }
+            if (current == null) {
+                return;
+            }
+
+            UserTags next = change.apply(current);
+            synchronized (users) {
+                if (users.get(username) != current) {
+                    continue;
+                }
+                if (next == null) {
+                    bytes -= current.bytes;
+                    users.remove(username);
+                } else {
+                    put(username, next);
+                }
+                return;
+            }
+        }
+    }
+
+    private void put(String username, UserTags userTags) {
+        UserTags old = users.put(username, userTags);
+        bytes += userTags.bytes - (old == null ? 0 : old.bytes);
+
+        long budget = memoryBudgetMb * 1024 * 1024;
+        Iterator<Map.Entry<String, UserTags>> eldest = users.entrySet().iterator();
+        while (bytes > budget && users.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, UserTags> entry = eldest.next();
+            if (entry.getKey().equals(username)) {
+                continue;
+            }
+            bytes -= entry.getValue().bytes;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private int size() {
+        synchronized (users) {
+            return users.size();
+        }
+    }
+
+    private void afterCommit(Runnable operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            operation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                operation.run();
+            }
+        });
+    }
+
+    private static final class Generation {
+
+        private long value;
+
+        private int loaders;
+    }
+
+    // hasNext = MASIH ADA HASIL SETELAH HALAMAN INI, total SELALU PASTI (CARDINALITY BITMAP)
+    public record Hits(List<String> ids, long total, boolean hasNext) {
+    }
+
+    // TIDAK PERNAH DIUBAH SETELAH DIBUAT, SETIAP PERUBAHAN MEMBUAT OBJECT BARU
+    // BITMAP TAG YANG TIDAK BERUBAH DIPAKAI BERSAMA OLEH OBJECT LAMA DAN BARU
+    private static final class UserTags {
+
+        // ORDINAL 0 .. base.length - 1, URUT BERDASARKAN id SEHINGGA ORDINAL BISA DICARI DENGAN BINARY SEARCH
+        private final String[] base;
+
+        // ORDINAL base.length + i, TIDAK URUT
+        private final List<String> tail;
+
+        private final Map<String, RoaringBitmap> tags;
+
+        private final long loadedAt;
+
+        private final long bytes;
+
+        private UserTags(String[] base, List<String> tail, Map<String, RoaringBitmap> tags, long loadedAt) {
+            this.base = base;
+            this.tail = tail;
+            this.tags = tags;
+            this.loadedAt = loadedAt;
+
+            long size = 64 + (long) (base.length + tail.size()) * 96;
+            for (Map.Entry<String, RoaringBitmap> entry : tags.entrySet()) {
+                size += 64 + entry.getKey().length() + entry.getValue().getSizeInBytes();
+            }
+            this.bytes = size;
+        }
+
+        // rows = [contact_id, tag], DIURUTKAN DI SINI SUPAYA SAMA DENGAN URUTAN String DI JAVA
+        static UserTags load(List<Object[]> rows, long loadedAt) {
+            String[] ids = rows.stream().map(row -> (String) row[0]).distinct().sorted().toArray(String[]::new);
+            Map<String, RoaringBitmap> tags = new HashMap<>();
+            for (Object[] row : rows) {
+                tags.computeIfAbsent((String) row[1], tag -> new RoaringBitmap()).add(Arrays.binarySearch(ids, (String) row[0]));
+            }
+            tags.values().forEach(RoaringBitmap::runOptimize);
+            return new UserTags(ids, List.of(), tags, loadedAt);
+        }
+
+        Hits search(Collection<String> names, boolean all, String after, long offset, int limit) {
+            RoaringBitmap result = null;
+            for (String name : names) {
+                RoaringBitmap bitmap = tags.getOrDefault(name, EMPTY);
+                if (result == null) {
+                    result = bitmap;
+                } else {
+                    result = all ? RoaringBitmap.and(result, bitmap) : RoaringBitmap.or(result, bitmap);
+                }
+            }
+            if (result == null) {
+                result = EMPTY;
+            }
+
+            // CUKUP AMBIL need ID TERKECIL SETELAH after, SATU LEBIH UNTUK TAHU MASIH ADA HALAMAN BERIKUTNYA
+            long need = offset + limit + 1;
+            List<String> found = new ArrayList<>();
+            int start = 0;
+            if (after != null) {
+                int index = Arrays.binarySearch(base, after);
+                start = index >= 0 ? index + 1 : -index - 1;
+            }
+            PeekableIntIterator ordinals = result.getIntIterator();
+            ordinals.advanceIfNeeded(start);
+            while (ordinals.hasNext() && found.size() < need) {
+                int ordinal = ordinals.next();
+                if (ordinal >= base.length) {
+                    break;
+                }
+                found.add(base[ordinal]);
+            }
+
+            // ID DI TAIL TIDAK URUT, DIGABUNG LALU DIURUTKAN ULANG. TAIL SELALU KECIL
+            boolean merged = false;
+            for (int i = 0; i < tail.size(); i++) {
+                String id = tail.get(i);
+                if (result.contains(base.length + i) && (after == null || id.compareTo(after) > 0)) {
+                    found.add(id);
+                    merged = true;
+                }
+            }
+            if (merged) {
+                Collections.sort(found);
+                if (found.size() > need) {
+                    found = found.subList(0, (int) need);
+                }
+            }
+
+            int from = (int) Math.min(offset, found.size());
+            int to = (int) Math.min(offset + limit, found.size());
+            return new Hits(List.copyOf(found.subList(from, to)), result.getLongCardinality(), found.size() > offset + limit);
+        }
+
+        UserTags with(String contactId, String tag, int maxTail) {
+            int ordinal = ordinalOf(contactId);
+            List<String> nextTail = tail;
+            if (ordinal < 0) {
+                if (tail.size() >= maxTail) {
+                    return null;
+                }
+                ordinal = base.length + tail.size();
+                nextTail = new ArrayList<>(tail);
+                nextTail.add(contactId);
+                nextTail = List.copyOf(nextTail);
+            }
+
+            RoaringBitmap bitmap = tags.getOrDefault(tag, EMPTY);
+            if (bitmap.contains(ordinal)) {
+                return this;
+            }
+            bitmap = bitmap.clone();
+            bitmap.add(ordinal);
+            Map<String, RoaringBitmap> nextTags = new HashMap<>(tags);
+            nextTags.put(tag, bitmap);
+            return new UserTags(base, nextTail, nextTags, loadedAt);
+        }
+
+        UserTags without(String contactId, String tag) {
+            int ordinal = ordinalOf(contactId);
+            RoaringBitmap bitmap = tags.get(tag);
+            if (ordinal < 0 || bitmap == null || !bitmap.contains(ordinal)) {
+                return this;
+            }
+            bitmap = bitmap.clone();
+            bitmap.remove(ordinal);
+            Map<String, RoaringBitmap> nextTags = new HashMap<>(tags);
+            if (bitmap.isEmpty()) {
+                nextTags.remove(tag);
+            } else {
+                nextTags.put(tag, bitmap);
+            }
+            return new UserTags(base, tail, nextTags, loadedAt);
+        }
+
+        // CONTACT DIHAPUS, ORDINAL-NYA DIBUANG DARI SEMUA BITMAP. ORDINAL TIDAK DIPAKAI ULANG
+        UserTags without(String contactId) {
+            int ordinal = ordinalOf(contactId);
+            if (ordinal < 0) {
+                return this;
+            }
+            Map<String, RoaringBitmap> nextTags = new HashMap<>();
+            for (Map.Entry<String, RoaringBitmap> entry : tags.entrySet()) {
+                RoaringBitmap bitmap = entry.getValue();
+                if (bitmap.contains(ordinal)) {
+                    bitmap = bitmap.clone();
+                    bitmap.remove(ordinal);
+                }
+                if (!bitmap.isEmpty()) {
+                    nextTags.put(entry.getKey(), bitmap);
+                }
+            }
+            return new UserTags(base, tail, nextTags, loadedAt);
+        }
+
+        private int ordinalOf(String contactId) {
+            int index = Arrays.binarySearch(base, contactId);
+            if (index >= 0) {
+                return index;
+            }
+            int position = tail.indexOf(contactId);
+            return position < 0 ? -1 : base.length + position;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package programmer.restful.search;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// POSISI TERAKHIR DI HASIL PENCARIAN (SCORE + ID), DIKIRIM KE CLIENT SEBAGAI STRING OPAQUE
+public record SearchCursor(float score, String id) {
+
+    public String encode() {
+        String value = Integer.toHexString(Float.floatToIntBits(score)) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            float score = Float.intBitsToFloat(Integer.parseUnsignedInt(value.substring(0, separator), 16));
+            return new SearchCursor(score, value.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package programmer.restful.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// BENTUK NORMAL UNTUK KOLOM *_normalized : HURUF KECIL, TANPA AKSEN
+// DIPAKAI SAAT MENULIS CONTACT DAN SAAT MENCARI, SUPAYA KEDUANYA SELALU SAMA
+public final class SearchNormalizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]+");
+
+    private SearchNormalizer() {
+    }
+
+    // NAMA DIPECAH PER KATA DAN DIGABUNG DENGAN SATU SPASI, "  Jean-Luc  Picard" -> "jean luc picard"
+    public static String name(String value) {
+        if (value == null) {
+            return null;
+        }
+        return SEPARATORS.matcher(fold(value)).replaceAll(" ").trim();
+    }
+
+    public static String fullName(String firstName, String lastName) {
+        String first = name(firstName);
+        String last = name(lastName);
+        if (first == null || first.isEmpty()) {
+            return last == null ? "" : last;
+        }
+        return last == null || last.isEmpty() ? first : first + " " + last;
+    }
+
+    // EMAIL TIDAK DIPECAH, TANDA BACA SEPERTI @ DAN . TETAP ADA
+    public static String email(String value) {
+        if (value == null) {
+            return null;
+        }
+        return fold(value).trim();
+    }
+
+    // PHONE HANYA DIGIT, "+" DI DEPAN DIPERTAHANKAN : "+62 812-3456" -> "+628123456"
+    public static String phone(String value) {
+        String digits = digits(value);
+        if (digits == null || digits.isEmpty()) {
+            return null;
+        }
+        return value.trim().startsWith("+") ? "+" + digits : digits;
+    }
+
+    public static String digits(String value) {
+        if (value == null) {
+            return null;
+        }
+        return NON_DIGITS.matcher(value).replaceAll("");
+    }
+
+    // DIGIT DIBALIK SUPAYA PENCARIAN DARI DIGIT TERAKHIR BISA MEMAKAI INDEX SEPERTI PENCARIAN AWALAN
+    public static String reversedDigits(String value) {
+        String digits = digits(value);
+        return digits == null || digits.isEmpty() ? null : new StringBuilder(digits).reverse().toString();
+    }
+
+    // TAG TIDAK PEDULI HURUF BESAR/KECIL : " VIP " -> "vip"
+    public static String tag(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String fold(String value) {
+        return MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,113 @@
+package programmer.restful.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import programmer.restful.model.UserPrincipal;
+import programmer.restful.repository.SessionRepository;
+import programmer.restful.repository.UserRepository;
+
+import java.io.IOException;
+
+// CEK X-API-TOKEN SEKALI PER REQUEST, HASILNYA DISIMPAN DI ATTRIBUTE REQUEST
+// JIKA TOKEN TIDAK VALID ATTRIBUTE TIDAK DIISI, DAN UserArgumenResolver YANG MENGEMBALIKAN 401
+@Component
+public class AuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String PRINCIPAL_ATTRIBUTE = AuthenticationFilter.class.getName() + ".PRINCIPAL";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private TokenSigner tokenSigner;
+
+    @Autowired
+    private TokenDenyList tokenDenyList;
+
+    @Autowired
+    private TokenBloomFilter tokenBloomFilter;
+
+    @Autowired
+    private RejectedTokenCache rejectedTokenCache;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String token = request.getHeader("X-API-TOKEN");
+        if (token != null) {
+            UserPrincipal principal = tokenSigner.isSigned(token) ? authenticateSigned(token) : authenticateOpaque(token);
+            if (principal != null) {
+                request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private UserPrincipal authenticateOpaque(String token) {
+        if (rejectedTokenCache.contains(token)) {
+            return null;
+        }
+
+        UserPrincipal principal = tokenCache.get(token);
+        if (principal != null) {
+            return principal;
+        }
+
+        // SETIAP SESSION MASUK BLOOM FILTER SEBELUM COMMIT (SessionListener) ATAU LEWAT catchUp() UNTUK NODE LAIN
+        // JADI TOKEN YANG TIDAK ADA DI FILTER PASTI TIDAK VALID DAN DITOLAK TANPA QUERY
+        if (!tokenBloomFilter.mightContain(token)) {
+            rejectedTokenCache.add(token);
+            return null;
+        }
+
+        principal = sessionRepository.findPrincipalByToken(token).orElse(null);
+        if (principal == null || principal.getTokenExpiredAt() < System.currentTimeMillis()) {
+            rejectedTokenCache.add(token);
+            return null;
+        }
+
+        tokenCache.put(token, principal);
+        return principal;
+    }
+
+    // TOKEN SIGNED DICEK DI MEMORY, DENY LIST DAN NAMA USER DIAMBIL SEKALI LALU DISIMPAN DI TokenCache
+    private UserPrincipal authenticateSigned(String token) {
+        TokenSigner.Claims claims = tokenSigner.verify(token);
+        if (claims == null || claims.expiredAt() < System.currentTimeMillis()) {
+            return null;
+        }
+
+        UserPrincipal principal = tokenCache.get(token);
+        if (principal != null) {
+            return principal;
+        }
+
+        if (tokenDenyList.isDenied(token)) {
+            return null;
+        }
+
+        principal = userRepository.findNameByUsername(claims.username())
+                .map(name -> new UserPrincipal(claims.username(), name, claims.expiredAt(), token))
+                .orElse(null);
+        if (principal != null) {
+            tokenCache.put(token, principal);
+        }
+        return principal;
+    }
+}
@@ -5,7 +5,6 @@
 package programmer.restful.security;
 
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
@@ -199,10 +198,27 @@ public class BCrypt {
     static final int MIN_LOG_ROUNDS = 4;
     static final int MAX_LOG_ROUNDS = 31;
 
+    // Shared source of salt randomness, SecureRandom is thread safe
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Per-thread working state, so hashing does not allocate key schedules
+    private static final ThreadLocal<BCrypt> STATE = ThreadLocal.withInitial(BCrypt::new);
+
     // Expanded Blowfish key
-    private int P[];
+    private final int P[] = new int[P_orig.length];
+
+    private final int S[] = new int[S_orig.length];
+
+    // Scratch buffers reused between calls on the same thread
+    private final int lr[] = new int[2];
+
+    private final int cdata[] = new int[bf_crypt_ciphertext.length];
 
-    private int S[];
+    private final byte hashed[] = new byte[bf_crypt_ciphertext.length * 4];
+
+    private final byte saltb[] = new byte[BCRYPT_SALT_LEN];
+
+    private byte keyb[] = new byte[73];
 
     /**
      * Encode a byte array using bcrypt's slightly-modified base64 encoding scheme. Note
@@ -266,15 +282,28 @@ public class BCrypt {
      * @throws IllegalArgumentException if maxolen is invalid
      */
     static byte[] decode_base64(String s, int maxolen) throws IllegalArgumentException {
-        StringBuilder rs = new StringBuilder();
-        int off = 0, slen = s.length(), olen = 0;
-        byte ret[];
-        byte c1, c2, c3, c4, o;
-
         if (maxolen <= 0) {
             throw new IllegalArgumentException("Invalid maxolen");
         }
 
+        byte ret[] = new byte[maxolen];
+        int olen = decode_base64(s, 0, s.length(), ret, maxolen);
+        return olen == maxolen ? ret : Arrays.copyOf(ret, olen);
+    }
+
+    /**
+     * Decode part of a string encoded using bcrypt's base64 scheme into a buffer
+     * @param s the string to decode
+     * @param off the offset of the first character to decode
+     * @param end the offset after the last character to decode
+     * @param ret the destination buffer
+     * @param maxolen the maximum number of bytes to decode
+     * @return the number of bytes decoded
+     */
+    private static int decode_base64(String s, int off, int end, byte ret[], int maxolen) {
+        int slen = end, olen = 0;
+        byte c1, c2, c3, c4, o;
+
         while (off < slen - 1 && olen < maxolen) {
             c1 = char64(s.charAt(off++));
             c2 = char64(s.charAt(off++));
@@ -283,7 +312,7 @@ public class BCrypt {
             }
             o = (byte) (c1 << 2);
             o |= (c2 & 0x30) >> 4;
-            rs.append((char) o);
+            ret[olen] = o;
             if (++olen >= maxolen || off >= slen) {
                 break;
             }
@@ -293,22 +322,18 @@ public class BCrypt {
             }
             o = (byte) ((c2 & 0x0f) << 4);
             o |= (c3 & 0x3c) >> 2;
-            rs.append((char) o);
+            ret[olen] = o;
             if (++olen >= maxolen || off >= slen) {
                 break;
             }
             c4 = char64(s.charAt(off++));
             o = (byte) ((c3 & 0x03) << 6);
             o |= c4;
-            rs.append((char) o);
+            ret[olen] = o;
             ++olen;
         }
 
-        ret = new byte[olen];
-        for (off = 0; off < olen; off++) {
-            ret[off] = (byte) rs.charAt(off);
-        }
-        return ret;
+        return olen;
     }
 
     /**
@@ -342,82 +367,87 @@ public class BCrypt {
     /**
      * Cycically extract a word of key material
      * @param data the string to extract the data from
-     * @param offp a "pointer" (as a one-entry array) to the current offset into data
-     * @param signp a "pointer" (as a one-entry array) to the cumulative flag for
-     * non-benign sign extension
-     * @return correct and buggy next word of material from data as int[2]
+     * @param len the length of the key material in data
+     * @param off the current offset into data
+     * @return the next word of material from data
      */
-    private static int[] streamtowords(byte data[], int offp[], int signp[]) {
-        int i;
-        int words[] = { 0, 0 };
-        int off = offp[0];
-        int sign = signp[0];
-
-        for (i = 0; i < 4; i++) {
-            words[0] = (words[0] << 8) | (data[off] & 0xff);
-            words[1] = (words[1] << 8) | data[off]; // sign extension bug
-            if (i > 0) {
-                sign |= words[1] & 0x80;
-            }
-            off = (off + 1) % data.length;
+    private static int streamtoword(byte data[], int len, int off) {
+        int word = 0;
+        for (int i = 0; i < 4; i++) {
+            word = (word << 8) | (data[off] & 0xff);
+            off = (off + 1) % len;
         }
-
-        offp[0] = off;
-        signp[0] = sign;
-        return words;
+        return word;
     }
 
     /**
-     * Cycically extract a word of key material
+     * Cycically extract a word of key material, with sign-extension bug
      * @param data the string to extract the data from
-     * @param offp a "pointer" (as a one-entry array) to the current offset into data
+     * @param len the length of the key material in data
+     * @param off the current offset into data
      * @return the next word of material from data
      */
-    private static int streamtoword(byte data[], int offp[]) {
-        int signp[] = { 0 };
-        return streamtowords(data, offp, signp)[0];
+    private static int streamtoword_bug(byte data[], int len, int off) {
+        int word = 0;
+        for (int i = 0; i < 4; i++) {
+            word = (word << 8) | data[off]; // sign extension bug
+            off = (off + 1) % len;
+        }
+        return word;
     }
 
     /**
-     * Cycically extract a word of key material, with sign-extension bug
+     * Cycically compute the non-benign sign extension flag for a word of key material
      * @param data the string to extract the data from
-     * @param offp a "pointer" (as a one-entry array) to the current offset into data
-     * @return the next word of material from data
+     * @param len the length of the key material
+     * @param off the current offset into data
+     * @return 0x80 if the buggy word had a non-benign sign extension, 0 otherwise
      */
-    private static int streamtoword_bug(byte data[], int offp[]) {
-        int signp[] = { 0 };
-        return streamtowords(data, offp, signp)[1];
+    private static int streamtosign(byte data[], int len, int off) {
+        int word = 0, sign = 0;
+        for (int i = 0; i < 4; i++) {
+            word = (word << 8) | data[off];
+            if (i > 0) {
+                sign |= word & 0x80;
+            }
+            off = (off + 1) % len;
+        }
+        return sign;
     }
 
     /**
      * Initialise the Blowfish key schedule
      */
     private void init_key() {
-        this.P = P_orig.clone();
-        this.S = S_orig.clone();
+        System.arraycopy(P_orig, 0, this.P, 0, P_orig.length);
+        System.arraycopy(S_orig, 0, this.S, 0, S_orig.length);
     }
 
     /**
      * Key the Blowfish cipher
      * @param key an array containing the key
+     * @param klen the length of the key
      * @param sign_ext_bug true to implement the 2x bug
      * @param safety bit 16 is set when the safety measure is requested
      */
-    private void key(byte key[], boolean sign_ext_bug, int safety) {
+    private void key(byte key[], int klen, boolean sign_ext_bug, int safety) {
         int i;
-        int koffp[] = { 0 };
-        int lr[] = { 0, 0 };
+        int koff = 0;
+        int lr[] = this.lr;
         int plen = this.P.length, slen = this.S.length;
 
         for (i = 0; i < plen; i++) {
             if (!sign_ext_bug) {
-                this.P[i] = this.P[i] ^ streamtoword(key, koffp);
+                this.P[i] = this.P[i] ^ streamtoword(key, klen, koff);
             }
             else {
-                this.P[i] = this.P[i] ^ streamtoword_bug(key, koffp);
+                this.P[i] = this.P[i] ^ streamtoword_bug(key, klen, koff);
             }
+            koff = (koff + 4) % klen;
         }
 
+        lr[0] = 0;
+        lr[1] = 0;
         for (i = 0; i < plen; i += 2) {
             encipher(lr, 0);
             this.P[i] = lr[0];
@@ -436,25 +466,28 @@ public class BCrypt {
      * Future-Adaptable Password Scheme" https://www.openbsd.org/papers/bcrypt-paper.ps
      * @param data salt information
      * @param key password information
+     * @param klen the length of the password information
      * @param sign_ext_bug true to implement the 2x bug
      * @param safety bit 16 is set when the safety measure is requested
      */
-    private void ekskey(byte data[], byte key[], boolean sign_ext_bug, int safety) {
+    private void ekskey(byte data[], byte key[], int klen, boolean sign_ext_bug, int safety) {
         int i;
-        int koffp[] = { 0 }, doffp[] = { 0 };
-        int lr[] = { 0, 0 };
+        int koff = 0, doff = 0;
+        int lr[] = this.lr;
+        int dlen = data.length;
         int plen = this.P.length, slen = this.S.length;
-        int signp[] = { 0 }; // non-benign sign-extension flag
+        int sign = 0; // non-benign sign-extension flag
         int diff = 0; // zero iff correct and buggy are same
 
         for (i = 0; i < plen; i++) {
-            int words[] = streamtowords(key, koffp, signp);
-            diff |= words[0] ^ words[1];
-            this.P[i] = this.P[i] ^ words[sign_ext_bug ? 1 : 0];
+            int word = streamtoword(key, klen, koff);
+            int word_bug = streamtoword_bug(key, klen, koff);
+            sign |= streamtosign(key, klen, koff);
+            koff = (koff + 4) % klen;
+            diff |= word ^ word_bug;
+            this.P[i] = this.P[i] ^ (sign_ext_bug ? word_bug : word);
         }
 
-        int sign = signp[0];
-
         /*
          * At this point, "diff" is zero iff the correct and buggy algorithms produced
          * exactly the same result. If so and if "sign" is non-zero, which indicates that
@@ -483,17 +516,23 @@ public class BCrypt {
          */
         this.P[0] ^= sign;
 
+        lr[0] = 0;
+        lr[1] = 0;
         for (i = 0; i < plen; i += 2) {
-            lr[0] ^= streamtoword(data, doffp);
-            lr[1] ^= streamtoword(data, doffp);
+            lr[0] ^= streamtoword(data, dlen, doff);
+            doff = (doff + 4) % dlen;
+            lr[1] ^= streamtoword(data, dlen, doff);
+            doff = (doff + 4) % dlen;
             encipher(lr, 0);
             this.P[i] = lr[0];
             this.P[i + 1] = lr[1];
         }
 
         for (i = 0; i < slen; i += 2) {
-            lr[0] ^= streamtoword(data, doffp);
-            lr[1] ^= streamtoword(data, doffp);
+            lr[0] ^= streamtoword(data, dlen, doff);
+            doff = (doff + 4) % dlen;
+            lr[1] ^= streamtoword(data, dlen, doff);
+            doff = (doff + 4) % dlen;
             encipher(lr, 0);
             this.S[i] = lr[0];
             this.S[i + 1] = lr[1];
@@ -508,18 +547,20 @@ public class BCrypt {
     }
 
     /**
-     * Perform the central password hashing step in the bcrypt scheme
+     * Perform the central password hashing step in the bcrypt scheme. The result is
+     * written to this.hashed.
      * @param password the password to hash
+     * @param plen the length of the password, including the terminator if any
      * @param salt the binary salt to hash with the password
      * @param log_rounds the binary logarithm of the number of rounds of hashing to apply
      * @param sign_ext_bug true to implement the 2x bug
      * @param safety bit 16 is set when the safety measure is requested
-     * @return an array containing the binary hashed password
      */
-    private byte[] crypt_raw(byte password[], byte salt[], int log_rounds, boolean sign_ext_bug, int safety,
-                             boolean for_check) {
-        int cdata[] = bf_crypt_ciphertext.clone();
+    private void crypt_raw(byte password[], int plen, byte salt[], int log_rounds, boolean sign_ext_bug, int safety,
+                           boolean for_check) {
+        int cdata[] = this.cdata;
         int clen = cdata.length;
+        System.arraycopy(bf_crypt_ciphertext, 0, cdata, 0, clen);
 
         long rounds;
         if (log_rounds < 4 || log_rounds > 31) {
@@ -543,10 +584,10 @@ public class BCrypt {
         }
 
         init_key();
-        ekskey(salt, password, sign_ext_bug, safety);
-        for (int i = 0; i < rounds; i++) {
-            key(password, sign_ext_bug, safety);
-            key(salt, false, safety);
+        ekskey(salt, password, plen, sign_ext_bug, safety);
+        for (long i = 0; i < rounds; i++) {
+            key(password, plen, sign_ext_bug, safety);
+            key(salt, salt.length, false, safety);
         }
 
         for (int i = 0; i < 64; i++) {
@@ -555,14 +596,13 @@ public class BCrypt {
             }
         }
 
-        byte[] ret = new byte[clen * 4];
+        byte[] ret = this.hashed;
         for (int i = 0, j = 0; i < clen; i++) {
             ret[j++] = (byte) ((cdata[i] >> 24) & 0xff);
             ret[j++] = (byte) ((cdata[i] >> 16) & 0xff);
             ret[j++] = (byte) ((cdata[i] >> 8) & 0xff);
             ret[j++] = (byte) (cdata[i] & 0xff);
         }
-        return ret;
     }
 
     private static String hashpwforcheck(byte[] passwordb, String salt) {
@@ -594,12 +634,11 @@ public class BCrypt {
     }
 
     private static String hashpw(byte passwordb[], String salt, boolean for_check) {
-        BCrypt B;
-        String real_salt;
+        BCrypt B = STATE.get();
         byte saltb[], hashed[];
         char minor = (char) 0;
-        int rounds, off;
-        StringBuilder rs = new StringBuilder();
+        int rounds, off, saltlen, plen;
+        StringBuilder rs = new StringBuilder(60);
 
         if (salt == null) {
             throw new IllegalArgumentException("salt cannot be null");
@@ -633,17 +672,34 @@ public class BCrypt {
         if (off == 4 && saltLength < 29) {
             throw new IllegalArgumentException("Invalid salt");
         }
-        rounds = Integer.parseInt(salt.substring(off, off + 2));
+        char r1 = salt.charAt(off), r2 = salt.charAt(off + 1);
+        if (r1 >= '0' && r1 <= '9' && r2 >= '0' && r2 <= '9') {
+            rounds = (r1 - '0') * 10 + (r2 - '0');
+        }
+        else {
+            rounds = Integer.parseInt(salt.substring(off, off + 2));
+        }
 
-        real_salt = salt.substring(off + 3, off + 25);
-        saltb = decode_base64(real_salt, BCRYPT_SALT_LEN);
+        saltlen = decode_base64(salt, off + 3, off + 25, B.saltb, BCRYPT_SALT_LEN);
+        saltb = saltlen == BCRYPT_SALT_LEN ? B.saltb : Arrays.copyOf(B.saltb, saltlen);
 
+        // Copy the password into the per-thread key buffer, with the NUL terminator for $2a$ and later
+        plen = minor >= 'a' ? passwordb.length + 1 : passwordb.length;
+        if (B.keyb.length < plen) {
+            B.keyb = new byte[plen];
+        }
+        System.arraycopy(passwordb, 0, B.keyb, 0, passwordb.length);
         if (minor >= 'a') {
-            passwordb = Arrays.copyOf(passwordb, passwordb.length + 1);
+            B.keyb[passwordb.length] = 0;
         }
 
-        B = new BCrypt();
-        hashed = B.crypt_raw(passwordb, saltb, rounds, minor == 'x', minor == 'a' ? 0x10000 : 0, for_check);
+        try {
+            B.crypt_raw(B.keyb, plen, saltb, rounds, minor == 'x', minor == 'a' ? 0x10000 : 0, for_check);
+        }
+        finally {
+            Arrays.fill(B.keyb, 0, plen, (byte) 0);
+        }
+        hashed = B.hashed;
 
         rs.append("$2");
         if (minor >= 'a') {
@@ -670,7 +726,7 @@ public class BCrypt {
      * @exception IllegalArgumentException if prefix or log_rounds is invalid
      */
     public static String gensalt(String prefix, int log_rounds, SecureRandom random) throws IllegalArgumentException {
-        StringBuilder rs = new StringBuilder();
+        StringBuilder rs = new StringBuilder(29);
         byte rnd[] = new byte[BCRYPT_SALT_LEN];
 
         if (!prefix.startsWith("$2")
@@ -704,7 +760,7 @@ public class BCrypt {
      * @exception IllegalArgumentException if prefix or log_rounds is invalid
      */
     public static String gensalt(String prefix, int log_rounds) throws IllegalArgumentException {
-        return gensalt(prefix, log_rounds, new SecureRandom());
+        return gensalt(prefix, log_rounds, RANDOM);
     }
 
     /**
@@ -727,7 +783,7 @@ public class BCrypt {
      * @exception IllegalArgumentException if log_rounds is invalid
      */
     public static String gensalt(int log_rounds) throws IllegalArgumentException {
-        return gensalt(log_rounds, new SecureRandom());
+        return gensalt(log_rounds, RANDOM);
     }
 
     public static String gensalt(String prefix) {
@@ -766,7 +822,11 @@ public class BCrypt {
     }
 
     static boolean equalsNoEarlyReturn(String a, String b) {
-        return MessageDigest.isEqual(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+        int diff = a.length() ^ b.length();
+        for (int i = 0; i < a.length() && i < b.length(); i++) {
+            diff |= a.charAt(i) ^ b.charAt(i);
+        }
+        return diff == 0;
     }
 
 }
\ No newline at end of file
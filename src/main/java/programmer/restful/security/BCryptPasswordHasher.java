@@ -0,0 +1,100 @@
+package programmer.restful.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// COST BCRYPT DIPILIH SAAT STARTUP, YANG TERTINGGI YANG MASIH MASUK BUDGET LATENCY DI MESIN INI
+@Slf4j
+@Component
+public class BCryptPasswordHasher implements PasswordHasher {
+
+    private static final int CALIBRATION_LOG_ROUNDS = 8;
+
+    private static final int CALIBRATION_SAMPLES = 5;
+
+    @Autowired
+    private PasswordHashExecutor passwordHashExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.password-hash.budget-ms:50}")
+    private long budgetMs;
+
+    // 0 = KALIBRASI OTOMATIS
+    @Value("${app.password-hash.log-rounds:0}")
+    private int fixedLogRounds;
+
+    @Value("${app.password-hash.min-log-rounds:10}")
+    private int minLogRounds;
+
+    @Value("${app.password-hash.max-log-rounds:16}")
+    private int maxLogRounds;
+
+    private volatile int logRounds;
+
+    @PostConstruct
+    void init() {
+        logRounds = fixedLogRounds > 0 ? fixedLogRounds : calibrate();
+        log.info("Password hash cost set to 2^{} rounds (budget {} ms)", logRounds, budgetMs);
+
+        Gauge.builder("password.hash.log.rounds", this, hasher -> hasher.logRounds)
+                .register(meterRegistry);
+    }
+
+    int calibrate() {
+        String salt = BCrypt.gensalt(CALIBRATION_LOG_ROUNDS);
+        long best = Long.MAX_VALUE;
+        // SAMPEL PERTAMA TERMASUK WARM UP JIT, YANG DIPAKAI WAKTU TERCEPAT
+        for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        // SETIAP TAMBAH 1 COST WAKTU HASH JADI 2 KALI
+        int rounds = CALIBRATION_LOG_ROUNDS;
+        long budgetNanos = budgetMs * 1_000_000;
+        while (rounds < maxLogRounds && best * 2 <= budgetNanos) {
+            best *= 2;
+            rounds++;
+        }
+        return Math.max(minLogRounds, Math.min(maxLogRounds, rounds));
+    }
+
+    public int getLogRounds() {
+        return logRounds;
+    }
+
+    @Override
+    public String hash(String password) {
+        int rounds = logRounds;
+        return passwordHashExecutor.execute("hash", () -> BCrypt.hashpw(password, BCrypt.gensalt(rounds)));
+    }
+
+    @Override
+    public boolean matches(String password, String hash) {
+        return passwordHashExecutor.execute("verify", () -> BCrypt.checkpw(password, hash));
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        // FORMAT : $2a$10$... ATAU $2$10$...
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(1) != '2') {
+            return false;
+        }
+        int offset = hash.charAt(2) == '$' ? 3 : 4;
+        char tens = hash.charAt(offset);
+        char ones = hash.charAt(offset + 1);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return false;
+        }
+        // HANYA NAIK, HASH DENGAN COST LEBIH TINGGI DARI NODE LAIN TIDAK DITURUNKAN
+        return (tens - '0') * 10 + (ones - '0') < logRounds;
+    }
+}
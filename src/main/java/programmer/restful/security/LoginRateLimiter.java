@@ -0,0 +1,130 @@
+package programmer.restful.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// TOKEN BUCKET PER USERNAME DAN PER IP UNTUK /api/auth/login, DICEK SEBELUM BCRYPT
+// SETIAP BUCKET HANYA SATU AtomicLong (GCRA), TANPA LOCK
+@Component
+public class LoginRateLimiter {
+
+    // JIKA MAP PENUH, KEY BARU BERBAGI BUCKET INI SUPAYA MEMORY TETAP TERBATAS
+    private static final int OVERFLOW_STRIPES = 64;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.login-rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.login-rate-limit.username.capacity:5}")
+    private int usernameCapacity;
+
+    @Value("${app.login-rate-limit.username.per-minute:5}")
+    private int usernamePerMinute;
+
+    @Value("${app.login-rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${app.login-rate-limit.ip.per-minute:30}")
+    private int ipPerMinute;
+
+    @Value("${app.login-rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final Bucket[] overflow = new Bucket[OVERFLOW_STRIPES];
+
+    private Counter throttledUsername;
+
+    private Counter throttledIp;
+
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < OVERFLOW_STRIPES; i++) {
+            overflow[i] = new Bucket();
+        }
+        throttledUsername = Counter.builder("auth.login.throttled").tag("key", "username").register(meterRegistry);
+        throttledIp = Counter.builder("auth.login.throttled").tag("key", "ip").register(meterRegistry);
+        Gauge.builder("auth.login.rate-limit.keys", buckets, Map::size).register(meterRegistry);
+    }
+
+    public void check(String username, String address) {
+        if (!enabled) {
+            return;
+        }
+
+        // IP DULU, PERCOBAAN DARI IP YANG SUDAH DIBATASI TIDAK MENGHABISKAN TOKEN USERNAME KORBAN
+        long now = System.nanoTime();
+        if (address != null && !bucket("ip:" + address).tryAcquire(now, ipCapacity, ipPerMinute)) {
+            throttledIp.increment();
+            throw tooManyRequests();
+        }
+        if (username != null && !bucket("u:" + username).tryAcquire(now, usernameCapacity, usernamePerMinute)) {
+            throttledUsername.increment();
+            throw tooManyRequests();
+        }
+    }
+
+    // BUCKET YANG SUDAH PENUH LAGI SAMA DENGAN BUCKET BARU, JADI AMAN DIHAPUS
+    @Scheduled(fixedDelayString = "${app.login-rate-limit.evict-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now));
+    }
+
+    private Bucket bucket(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            return overflow[(key.hashCode() & Integer.MAX_VALUE) % OVERFLOW_STRIPES];
+        }
+        return buckets.computeIfAbsent(key, ignored -> new Bucket());
+    }
+
+    private ResponseStatusException tooManyRequests() {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, please try again later");
+    }
+
+    private static final class Bucket {
+
+        // WAKTU (nanoTime) SAAT BUCKET AKAN PENUH KEMBALI
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        boolean tryAcquire(long now, int capacity, int perMinute) {
+            long interval = 60_000_000_000L / perMinute;
+            long burst = interval * capacity;
+            while (true) {
+                long current = fullAt.get();
+                long base = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long next = base + interval;
+                if (next - now > burst) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean isIdle(long now) {
+            long current = fullAt.get();
+            return current == Long.MIN_VALUE || current - now < 0;
+        }
+    }
+}
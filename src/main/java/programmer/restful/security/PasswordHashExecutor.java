@@ -0,0 +1,107 @@
+package programmer.restful.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// BCRYPT DIJALANKAN DI THREAD POOL SENDIRI SUPAYA LOGIN YANG BANYAK TIDAK MENGHABISKAN THREAD TOMCAT
+// JIKA ANTRIAN PENUH REQUEST LANGSUNG DITOLAK DENGAN 503, JIKA MENUNGGU LEBIH DARI timeout-ms JUGA 503
+@Component
+public class PasswordHashExecutor {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.password-hash.threads:0}")
+    private int threads;
+
+    @Value("${app.password-hash.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.password-hash.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    private Counter rejected;
+
+    private Counter timedOut;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("password.hash.queue.size", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        rejected = Counter.builder("password.hash.rejected")
+                .register(meterRegistry);
+        timedOut = Counter.builder("password.hash.timeout")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public <T> T execute(String operation, Callable<T> task) {
+        Timer timer = Timer.builder("password.hash.duration")
+                .tag("operation", operation)
+                .register(meterRegistry);
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException exception) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please try again later");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException exception) {
+            // TASK YANG MASIH DI ANTRIAN TIDAK JADI DIJALANKAN
+            future.cancel(true);
+            timedOut.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please try again later");
+        } catch (InterruptedException exception) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please try again later");
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+}
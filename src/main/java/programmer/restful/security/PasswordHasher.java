@@ -0,0 +1,11 @@
+package programmer.restful.security;
+
+public interface PasswordHasher {
+
+    String hash(String password);
+
+    boolean matches(String password, String hash);
+
+    // TRUE JIKA HASH DIBUAT DENGAN COST YANG SUDAH TIDAK SESUAI, HARUS DI-HASH ULANG SAAT LOGIN
+    boolean needsRehash(String hash);
+}
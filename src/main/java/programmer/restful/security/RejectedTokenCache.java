@@ -0,0 +1,79 @@
+package programmer.restful.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// TOKEN YANG BARU SAJA DITOLAK, SUPAYA CLIENT YANG TERUS MENGIRIM TOKEN SALAH TIDAK QUERY KE DATABASE LAGI
+// JIKA PENUH, ENTRY PALING LAMA DARI BEBERAPA SAMPEL DIBUANG SUPAYA TOKEN BARU TETAP BISA MASUK TANPA LOCK GLOBAL
+@Component
+public class RejectedTokenCache {
+
+    private static final int EVICTION_SAMPLES = 8;
+
+    @Value("${app.token-filter.rejected-max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.token-filter.rejected-ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final Map<String, Long> entries = new ConcurrentHashMap<>();
+
+    public boolean contains(String token) {
+        Long until = entries.get(token);
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            entries.remove(token, until);
+            return false;
+        }
+        return true;
+    }
+
+    public void add(String token) {
+        long now = System.currentTimeMillis();
+        // DIULANG KARENA THREAD LAIN BISA MEMBUANG ENTRY SAMPEL YANG SAMA LEBIH DULU
+        if (!entries.containsKey(token)) {
+            while (entries.size() >= maxSize && evict(now)) {
+            }
+        }
+        entries.put(token, now + ttlSeconds * 1000);
+    }
+
+    // URUTAN ITERATOR ConcurrentHashMap MENGIKUTI HASH, JADI SAMPEL INI ACAK. TTL SAMA, EXPIRED PALING AWAL = PALING LAMA MASUK
+    private boolean evict(long now) {
+        Map.Entry<String, Long> oldest = null;
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLES && iterator.hasNext(); i++) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getValue() < now) {
+                entries.remove(entry.getKey(), entry.getValue());
+            } else if (oldest == null || entry.getValue() < oldest.getValue()) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null && entries.size() >= maxSize) {
+            entries.remove(oldest.getKey(), oldest.getValue());
+        }
+        return oldest != null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void remove(String token) {
+        entries.remove(token);
+    }
+
+    @Scheduled(fixedDelayString = "${app.token-filter.rejected-purge-ms:30000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(until -> until < now);
+    }
+}
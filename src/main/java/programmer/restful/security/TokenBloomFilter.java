@@ -0,0 +1,199 @@
+package programmer.restful.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import programmer.restful.repository.SessionRepository;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// BLOOM FILTER DARI SEMUA TOKEN YANG MASIH AKTIF, TOKEN YANG TIDAK ADA DI FILTER DITOLAK TANPA QUERY
+// DIBANGUN SEKALI SAAT STARTUP, SETELAH ITU HANYA DITAMBAH : SessionListener SEBELUM COMMIT UNTUK SESSION DARI NODE INI,
+// catchUp() UNTUK SESSION DARI NODE LAIN. TOKEN DARI NODE LAIN DITOLAK DI NODE INI PALING LAMA catch-up-ms SETELAH LOGIN
+// TOKEN EXPIRED TETAP ADA DI FILTER, JADI DIBANGUN ULANG HANYA JIKA PERKIRAAN FALSE POSITIVE SUDAH 2x TARGET
+@Component
+public class TokenBloomFilter {
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private RejectedTokenCache rejectedTokenCache;
+
+    @Value("${app.token-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.token-filter.expected-tokens:100000}")
+    private int expectedTokens;
+
+    @Value("${app.token-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.token-filter.chunk-size:10000}")
+    private int chunkSize;
+
+    @Value("${app.token-filter.catch-up-overlap-ms:60000}")
+    private long catchUpOverlapMs;
+
+    private volatile Bits current;
+
+    private volatile Bits building;
+
+    // expired_at TERBESAR YANG SUDAH MASUK FILTER, HANYA DIAKSES DI DALAM METHOD synchronized
+    private long watermark;
+
+    public boolean mightContain(String token) {
+        Bits bits = current;
+        // SEBELUM FILTER PERTAMA SELESAI DIBANGUN SEMUA TOKEN DIANGGAP MUNGKIN VALID DAN DICEK KE DATABASE
+        return !enabled || bits == null || bits.mightContain(token);
+    }
+
+    public void put(String token) {
+        Bits bits = current;
+        if (bits != null) {
+            bits.put(token);
+        }
+        Bits next = building;
+        if (next != null) {
+            next.put(token);
+        }
+    }
+
+    // JALAN PERTAMA KALI SAAT STARTUP DAN MEMBANGUN FILTER, SETELAH ITU HANYA MEMBACA SESSION YANG BELUM DILIHAT
+    @Scheduled(fixedDelayString = "${app.token-filter.catch-up-ms:5000}")
+    public synchronized void catchUp() {
+        if (!enabled) {
+            return;
+        }
+        Bits bits = current;
+        if (bits == null || bits.falsePositiveRate() > falsePositiveRate * 2) {
+            rebuild();
+            return;
+        }
+
+        // DIMULAI catch-up-overlap-ms SEBELUM watermark, SESSION YANG COMMIT TERLAMBAT DENGAN expired_at LEBIH KECIL TETAP TERBACA
+        long expiredAt = watermark - catchUpOverlapMs;
+        String after = "";
+        List<Object[]> rows;
+        do {
+            rows = sessionRepository.findTokensExpiringAfter(expiredAt, after, chunkSize);
+            for (Object[] row : rows) {
+                after = (String) row[0];
+                expiredAt = ((Number) row[1]).longValue();
+                if (!bits.mightContain(after)) {
+                    bits.put(after);
+                    // MUNGKIN SUDAH DITOLAK SEBELUM SESSION-NYA TERLIHAT DI NODE INI
+                    rejectedTokenCache.remove(after);
+                }
+                watermark = Math.max(watermark, expiredAt);
+            }
+        } while (rows.size() == chunkSize);
+    }
+
+    // PER CHUNK, TOKEN BARU SELAMA REBUILD IKUT DIMASUKKAN LEWAT put()
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long liveTokens = sessionRepository.countLiveTokens(now);
+        Bits bits = Bits.create((int) Math.max(expectedTokens, liveTokens * 2), falsePositiveRate);
+        building = bits;
+        watermark = sessionRepository.findMaxExpiredAt().orElse(now);
+        String after = "";
+        List<String> tokens;
+        do {
+            tokens = sessionRepository.findLiveTokens(now, after, chunkSize);
+            for (String token : tokens) {
+                bits.put(token);
+                after = token;
+            }
+        } while (tokens.size() == chunkSize);
+        current = bits;
+        building = null;
+    }
+
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+
+        private final long bitCount;
+
+        private final int hashCount;
+
+        // JUMLAH put YANG MENGUBAH MINIMAL SATU BIT, PERKIRAAN JUMLAH TOKEN BERBEDA DI FILTER
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Bits(long bitCount, int hashCount) {
+            this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+            this.bitCount = (long) words.length() << 6;
+            this.hashCount = hashCount;
+        }
+
+        static Bits create(int expectedInsertions, double falsePositiveRate) {
+            long bitCount = (long) (-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+            return new Bits(Math.max(64, bitCount), hashCount);
+        }
+
+        void put(String token) {
+            long hash = hash(token);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            boolean changed = false;
+            for (int i = 1; i <= hashCount; i++) {
+                long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long value;
+                do {
+                    value = words.get(word);
+                    if ((value & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, value, value | mask));
+                changed |= (value & mask) == 0;
+            }
+            if (changed) {
+                insertions.incrementAndGet();
+            }
+        }
+
+        // (1 - e^(-k * n / m))^k
+        double falsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashCount * insertions.get() / bitCount), hashCount);
+        }
+
+        boolean mightContain(String token) {
+            long hash = hash(token);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a 64 BIT DENGAN FINALIZER DARI MURMUR3
+        private static long hash(String token) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < token.length(); i++) {
+                hash ^= token.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package programmer.restful.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import programmer.restful.model.UserPrincipal;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// CACHE TOKEN -> UserPrincipal SUPAYA SETIAP REQUEST TIDAK PERLU QUERY KE DATABASE
+// ENTRY HILANG SAAT TTL ATAU TOKEN EXPIRED, DAN SAAT CACHE PENUH YANG PALING LAMA TIDAK DIPAKAI DARI BEBERAPA SAMPEL DIBUANG
+// TANPA LOCK GLOBAL : SETIAP REQUEST MEMBACA CACHE INI, LRU YANG PASTI BERARTI SEMUA REQUEST ANTRI DI SATU LOCK
+@Component
+public class TokenCache implements MeterBinder {
+
+    private static final int EVICTION_SAMPLES = 8;
+
+    @Value("${app.token-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.token-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public UserPrincipal get(String token) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt < now) {
+            if (entries.remove(token, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        // DITULIS PALING BANYAK SEKALI PER MILIDETIK SUPAYA TOKEN YANG RAMAI TIDAK SALING MENIMPA
+        if (entry.accessedAt != now) {
+            entry.accessedAt = now;
+        }
+        hits.increment();
+        return entry.principal;
+    }
+
+    public void put(String token, UserPrincipal principal) {
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(now + ttlSeconds * 1000, principal.getTokenExpiredAt());
+        // DIULANG KARENA THREAD LAIN BISA MEMBUANG ENTRY SAMPEL YANG SAMA LEBIH DULU
+        if (!entries.containsKey(token)) {
+            while (entries.size() >= maxSize && evict(now)) {
+            }
+        }
+        entries.put(token, new Entry(principal, expiresAt, now));
+    }
+
+    // URUTAN ITERATOR ConcurrentHashMap MENGIKUTI HASH, JADI SAMPEL INI ACAK. YANG EXPIRED DIBUANG DULU,
+    // JIKA TIDAK ADA, YANG PALING LAMA TIDAK DIPAKAI DARI SAMPEL
+    private boolean evict(long now) {
+        Map.Entry<String, Entry> eldest = null;
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLES && iterator.hasNext(); i++) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getValue().expiresAt < now) {
+                if (entries.remove(entry.getKey(), entry.getValue())) {
+                    expirations.increment();
+                }
+            } else if (eldest == null || entry.getValue().accessedAt < eldest.getValue().accessedAt) {
+                eldest = entry;
+            }
+        }
+        if (eldest != null && entries.size() >= maxSize && entries.remove(eldest.getKey(), eldest.getValue())) {
+            evictions.increment();
+        }
+        return eldest != null;
+    }
+
+    public void invalidate(String token) {
+        if (token == null) {
+            return;
+        }
+        entries.remove(token);
+    }
+
+    public void invalidateUser(String username) {
+        entries.values().removeIf(entry -> entry.principal.getUsername().equals(username));
+    }
+
+    // DIBUANG SETELAH COMMIT, JIKA DIBUANG SEBELUMNYA REQUEST LAIN BISA MENYIMPAN LAGI DATA LAMA YANG BELUM DI-COMMIT
+    public void invalidateAfterCommit(String token) {
+        afterCommit(() -> invalidate(token));
+    }
+
+    public void invalidateUserAfterCommit(String username) {
+        afterCommit(() -> invalidateUser(username));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.token.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("auth.token.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("auth.token.cache.evictions", evictions, LongAdder::sum)
+                .tag("cause", "size")
+                .register(registry);
+        FunctionCounter.builder("auth.token.cache.evictions", expirations, LongAdder::sum)
+                .tag("cause", "expired")
+                .register(registry);
+        Gauge.builder("auth.token.cache.size", this, TokenCache::size)
+                .register(registry);
+    }
+
+    private void afterCommit(Runnable operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            operation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                operation.run();
+            }
+        });
+    }
+
+    private static final class Entry {
+
+        private final UserPrincipal principal;
+
+        private final long expiresAt;
+
+        private volatile long accessedAt;
+
+        private Entry(UserPrincipal principal, long expiresAt, long accessedAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+            this.accessedAt = accessedAt;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package programmer.restful.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import programmer.restful.repository.DeniedTokenRepository;
+
+// TOKEN SIGNED YANG SUDAH LOGOUT, DISIMPAN DI TABLE denied_tokens SAMPAI TOKEN TERSEBUT EXPIRED
+// DICEK SAAT TOKEN TIDAK ADA DI TokenCache, JADI NODE LAIN MENOLAK TOKEN PALING LAMA SETELAH TTL TokenCache
+// YANG DISIMPAN HANYA BAGIAN SIGNATURE SUPAYA BARISNYA KECIL
+@Component
+public class TokenDenyList {
+
+    @Autowired
+    private DeniedTokenRepository deniedTokenRepository;
+
+    public void deny(String token, long expiredAt) {
+        deniedTokenRepository.insertIfAbsent(signatureOf(token), expiredAt);
+    }
+
+    public boolean isDenied(String token) {
+        return deniedTokenRepository.existsById(signatureOf(token));
+    }
+
+    private String signatureOf(String token) {
+        return token.substring(token.lastIndexOf('.') + 1);
+    }
+}
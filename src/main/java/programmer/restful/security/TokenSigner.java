@@ -0,0 +1,114 @@
+package programmer.restful.security;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+// TOKEN FORMAT : base64url(username).expiredAt.base64url(HMAC-SHA256)
+// BISA DICEK DI MEMORY TANPA QUERY KE DATABASE
+@Component
+public class TokenSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // PANJANG OUTPUT HMAC-SHA256, SECRET LEBIH PENDEK MELEMAHKAN SIGNATURE
+    private static final int MIN_SECRET_BYTES = 32;
+
+    @Value("${app.token.format:opaque}")
+    private String format;
+
+    @Value("${app.token.secret:}")
+    private String secret;
+
+    private SecretKeySpec key;
+
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    void init() {
+        // SECRET ACAK PER NODE MEMBUAT TOKEN DITOLAK NODE LAIN DAN HILANG SAAT RESTART, JADI STARTUP DIGAGALKAN
+        if (secret.isBlank()) {
+            if (isEnabled()) {
+                throw new IllegalStateException("app.token.secret must be set when app.token.format=signed");
+            }
+            return;
+        }
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("app.token.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public boolean isEnabled() {
+        return "signed".equalsIgnoreCase(format);
+    }
+
+    public boolean isSigned(String token) {
+        return token.indexOf('.') >= 0;
+    }
+
+    public String sign(String username, long expiredAt) {
+        String payload = ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8)) + "." + expiredAt;
+        return payload + "." + ENCODER.encodeToString(mac(payload));
+    }
+
+    public Claims verify(String token) {
+        // TANPA SECRET (FORMAT opaque) TIDAK ADA TOKEN SIGNED YANG VALID
+        if (key == null) {
+            return null;
+        }
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first < 0 || first == last) {
+            return null;
+        }
+
+        String payload = token.substring(0, last);
+        byte[] signature;
+        try {
+            signature = DECODER.decode(token.substring(last + 1));
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(mac(payload), signature)) {
+            return null;
+        }
+
+        try {
+            String username = new String(DECODER.decode(token.substring(0, first)), StandardCharsets.UTF_8);
+            long expiredAt = Long.parseLong(token.substring(first + 1, last));
+            return new Claims(username, expiredAt);
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    private byte[] mac(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    public record Claims(String username, long expiredAt) {
+    }
+}
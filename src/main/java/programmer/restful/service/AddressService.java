@@ -1,26 +1,34 @@
 package programmer.restful.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import programmer.restful.entity.Address;
-import programmer.restful.entity.User;
 import programmer.restful.entity.Contact;
 import programmer.restful.model.AddressResponse;
 import programmer.restful.model.CreateAddressRequest;
+import programmer.restful.model.MergePatch;
 import programmer.restful.model.UpdateAddressRequest;
+import programmer.restful.model.UserPrincipal;
 import programmer.restful.repository.AddressRepository;
 import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.UserCounterRepository;
 
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class AddressService {
 
+    private static final Set<String> PATCH_FIELDS = Set.of("street", "city", "province", "country", "postalCode");
+
     @Autowired
     private ContactRespository contactRespository;
 
@@ -30,11 +38,14 @@ public class AddressService {
     @Autowired
     private ValidationService validationService;
 
+    @Autowired
+    private UserCounterRepository userCounterRepository;
+
     @Transactional
-    public AddressResponse create(User user, CreateAddressRequest request) {
+    public AddressResponse create(UserPrincipal user, CreateAddressRequest request) {
         validationService.validate(request);
 
-        Contact contact = contactRespository.findFirstByUserAndId(user, request.getIdContact())
+        Contact contact = contactRespository.findFirstByUserUsernameAndId(user.getUsername(), request.getIdContact())
                         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found"));
 
         Address address = new Address();
@@ -47,6 +58,7 @@ public class AddressService {
         address.setPostalCode(request.getPostalCode());
 
         addressRepository.save(address);
+        userCounterRepository.increment(user.getUsername(), 0, 1);
 
         return toAddressResponse(address);
 
@@ -60,61 +72,100 @@ public class AddressService {
                 .street(address.getStreet())
                 .province(address.getProvince())
                 .postalCode(address.getPostalCode())
+                .version(address.getVersion())
                 .build();
     }
 
     @Transactional(readOnly = true)
-    public AddressResponse get(User user,String idContact, String idAddress) {
-        Contact contact = contactRespository.findFirstByUserAndId(user,idContact)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found"));
-
-        Address address = addressRepository.findFirstByContactAndId(contact,idAddress)
+    public AddressResponse get(UserPrincipal user,String idContact, String idAddress) {
+        return addressRepository.findResponse(user.getUsername(), idContact, idAddress)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Address is not found"));
-
-        return toAddressResponse(address);
     }
 
     @Transactional
-    public AddressResponse update(User user,UpdateAddressRequest request) {
+    public AddressResponse update(UserPrincipal user,UpdateAddressRequest request) {
 
         validationService.validate(request);
 
-        Contact contact = contactRespository.findFirstByUserAndId(user, request.getIdContact())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found"));
+        // SATU UPDATE ... JOIN, JUMLAH BARIS MENENTUKAN 404, 412 ATAU BERHASIL
+        int updated = addressRepository.updateOwned(user.getUsername(), request.getIdContact(), request.getIdAddress(), request.getVersion(),
+                request.getStreet(), request.getCity(), request.getProvince(), request.getCountry(), request.getPostalCode());
+        if (updated == 0) {
+            if (Objects.nonNull(request.getVersion()) && addressRepository.existsByIdAndContactIdAndContactUserUsername(
+                    request.getIdAddress(), request.getIdContact(), user.getUsername())) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Address has been modified");
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,"Address is not found");
+        }
+
+        // SEMUA KOLOM ADDRESS DIISI DARI REQUEST, JADI RESPONSE TIDAK PERLU SELECT ULANG
+        return AddressResponse.builder()
+                .id(request.getIdAddress())
+                .city(request.getCity())
+                .country(request.getCountry())
+                .street(request.getStreet())
+                .province(request.getProvince())
+                .postalCode(request.getPostalCode())
+                .version(Objects.nonNull(request.getVersion()) ? request.getVersion() + 1 : null)
+                .build();
+    }
 
-        Address address = addressRepository.findFirstByContactAndId(contact, request.getIdAddress())
+    @Transactional
+    public AddressResponse patch(UserPrincipal user, String idContact, String idAddress, JsonNode body, Long version) {
+        MergePatch patch = MergePatch.of(body, PATCH_FIELDS);
+
+        Address address = addressRepository.findOwned(user.getUsername(), idContact, idAddress)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Address is not found"));
+        if (Objects.nonNull(version) && !version.equals(address.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Address has been modified");
+        }
+
+        // HASIL PATCH DIVALIDASI DENGAN ATURAN YANG SAMA SEPERTI PUT
+        UpdateAddressRequest request = UpdateAddressRequest.builder()
+                .idContact(idContact)
+                .idAddress(idAddress)
+                .street(patch.text("street", address.getStreet()))
+                .city(patch.text("city", address.getCity()))
+                .province(patch.text("province", address.getProvince()))
+                .country(patch.text("country", address.getCountry()))
+                .postalCode(patch.text("postalCode", address.getPostalCode()))
+                .build();
+        validationService.validate(request);
 
         address.setStreet(request.getStreet());
+        address.setCity(request.getCity());
         address.setProvince(request.getProvince());
-        address.setPostalCode(request.getPostalCode());
         address.setCountry(request.getCountry());
-        address.setCity(request.getCity());
-        addressRepository.save(address);
+        address.setPostalCode(request.getPostalCode());
+
+        // @DynamicUpdate : HANYA KOLOM YANG BERUBAH DITULIS, version DICEK DI UPDATE
+        try {
+            addressRepository.saveAndFlush(address);
+        } catch (ObjectOptimisticLockingFailureException exception) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Address has been modified");
+        }
 
         return toAddressResponse(address);
     }
 
     @Transactional
-    public void remove(User user,String idContact,String idAddress) {
+    public void remove(UserPrincipal user,String idContact,String idAddress) {
         validationService.validate(idAddress);
 
-        Contact contact = contactRespository.findFirstByUserAndId(user,idContact)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found"));
-
-        Address address = addressRepository.findFirstByContactAndId(contact,idAddress)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Address is not found"));
-
-        addressRepository.delete(address);
+        if (addressRepository.deleteOwned(user.getUsername(), idContact, idAddress) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,"Address is not found");
+        }
+        userCounterRepository.increment(user.getUsername(), 0, -1);
     }
 
     @Transactional(readOnly = true)
-    public List<AddressResponse> list(User user, String idContact) {
-
-        Contact contact = contactRespository.findFirstByUserAndId(user,idContact)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found"));
-
-        List<Address> addresses = addressRepository.findAllByContact(contact);
-        return addresses.stream().map(this::toAddressResponse).toList();
+    public List<AddressResponse> list(UserPrincipal user, String idContact) {
+
+        List<AddressResponse> addresses = addressRepository.findResponses(user.getUsername(), idContact);
+        // LIST KOSONG BISA BERARTI CONTACT TIDAK ADA, HANYA SAAT ITU PEMILIK CONTACT DICEK TERPISAH
+        if (addresses.isEmpty() && !contactRespository.existsByUserUsernameAndId(user.getUsername(), idContact)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact is not found");
+        }
+        return addresses;
     }
 }
@@ -7,12 +7,18 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.server.ResponseStatusException;
+import programmer.restful.entity.Session;
 import programmer.restful.entity.User;
 import programmer.restful.model.LoginUserRequest;
 import programmer.restful.model.TokenResponse;
+import programmer.restful.model.UserPrincipal;
 import programmer.restful.model.WebResponse;
+import programmer.restful.repository.SessionRepository;
 import programmer.restful.repository.UserRepository;
-import programmer.restful.security.BCrypt;
+import programmer.restful.security.PasswordHasher;
+import programmer.restful.security.TokenCache;
+import programmer.restful.security.TokenDenyList;
+import programmer.restful.security.TokenSigner;
 
 import java.util.UUID;
 
@@ -22,24 +28,58 @@ public class AuthService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
     @Autowired
     private ValidationService validationService;
 
-    @Transactional
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private TokenSigner tokenSigner;
+
+    @Autowired
+    private TokenDenyList tokenDenyList;
+
+    // TANPA @Transactional : BCRYPT BISA MENUNGGU DI ANTRIAN PasswordHashExecutor DAN CONNECTION TIDAK BOLEH DIPEGANG SELAMA ITU
+    // SETIAP QUERY DI BAWAH MEMAKAI TRANSAKSI PENDEK DARI REPOSITORY
     public TokenResponse login(LoginUserRequest request){
         validationService.validate(request);
 
         User user = userRepository.findById(request.getUsername())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or password is incorrect"));
 
-        if (BCrypt.checkpw(request.getPassword(), user.getPassword())){
-            user.setToken(UUID.randomUUID().toString());
-            user.setTokenExpiredAt(System.currentTimeMillis() + next30Days());
-            userRepository.save(user);
+        if (passwordHasher.matches(request.getPassword(), user.getPassword())){
+            // HASH LAMA DENGAN COST RENDAH DIGANTI SELAGI PASSWORD ASLI TERSEDIA
+            if (passwordHasher.needsRehash(user.getPassword())) {
+                userRepository.updatePassword(user.getUsername(), user.getPassword(), passwordHasher.hash(request.getPassword()));
+            }
+
+            if (tokenSigner.isEnabled()) {
+                // TOKEN SIGNED TIDAK DISIMPAN DI TABLE USERS
+                Long expiredAt = next30Days();
+                return TokenResponse.builder()
+                        .token(tokenSigner.sign(user.getUsername(), expiredAt))
+                        .expiredAt(expiredAt)
+                        .build();
+            }
+
+            // SETIAP LOGIN MEMBUAT SESSION BARU, BARIS USERS TIDAK DIUBAH
+            Session session = new Session();
+            session.setToken(UUID.randomUUID().toString());
+            // USER SUDAH DETACHED (DI LUAR TRANSAKSI), REFERENCE SAJA SUPAYA INSERT TIDAK SELECT USERS LAGI
+            session.setUser(userRepository.getReferenceById(user.getUsername()));
+            session.setExpiredAt(next30Days());
+            sessionRepository.save(session);
 
             return TokenResponse.builder()
-                    .token(user.getToken())
-                    .expiredAt(user.getTokenExpiredAt())
+                    .token(session.getToken())
+                    .expiredAt(session.getExpiredAt())
                     .build();
             // SUKSES
         }else {
@@ -49,14 +89,18 @@ public class AuthService {
     }
 
     private Long next30Days(){
-        return System.currentTimeMillis() + 30 * 24 * 60 * 60 * 1000;
+        return System.currentTimeMillis() + 30L * 24 * 60 * 60 * 1000;
     }
 
     @Transactional
-    public void logout(User user){
-        user.setToken(null);
-        user.setTokenExpiredAt(null);
+    public void logout(UserPrincipal user){
+        tokenCache.invalidateAfterCommit(user.getToken());
+        if (tokenSigner.isSigned(user.getToken())) {
+            tokenDenyList.deny(user.getToken(), user.getTokenExpiredAt());
+            return;
+        }
 
-        userRepository.save(user);
+        // HANYA SESSION INI YANG DIHAPUS, SESSION DI DEVICE LAIN TETAP AKTIF
+        sessionRepository.deleteByUsernameAndToken(user.getUsername(), user.getToken());
     }
 }
@@ -1,39 +1,123 @@
 package programmer.restful.service;
 
-import jakarta.persistence.criteria.Predicate;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import programmer.restful.entity.Contact;
-import programmer.restful.entity.User;
 import programmer.restful.model.ContactResponse;
+import programmer.restful.model.ContactSuggestionResponse;
 import programmer.restful.model.CreateContactRequest;
+import programmer.restful.model.CursorPage;
+import programmer.restful.model.MatchMode;
+import programmer.restful.model.MergePatch;
 import programmer.restful.model.SearchContactRequest;
+import programmer.restful.model.TagMode;
+import programmer.restful.model.TotalMode;
 import programmer.restful.model.UpdateContactRequest;
+import programmer.restful.model.UserPrincipal;
 import programmer.restful.repository.AddressRepository;
 import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.ContactSearchQuery;
+import programmer.restful.repository.UserCounterRepository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.search.ContactIndex;
+import programmer.restful.search.ContactSuggester;
+import programmer.restful.search.ContactTagIndex;
+import programmer.restful.search.SearchCursor;
+import programmer.restful.search.SearchNormalizer;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class ContactService {
 
+    private static final Set<String> PATCH_FIELDS = Set.of("firstName", "lastName", "email", "phone");
+
     @Autowired
     private ContactRespository contactRespository;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @Autowired
     private ValidationService validationService;
 
+    @Autowired
+    private ContactIndex contactIndex;
+
+    @Autowired
+    private ContactSuggester contactSuggester;
+
+    @Autowired
+    private ContactTagIndex contactTagIndex;
+
+    @Autowired
+    private UserCounterRepository userCounterRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.contact-search.estimate-cap:1000}")
+    private int estimateCap;
+
+    @Value("${app.contact-search.count-timeout-ms:200}")
+    private long countTimeoutMs;
+
+    @Value("${app.contact-search.count-query-timeout-ms:2000}")
+    private int countQueryTimeoutMs;
+
+    @Value("${app.contact-search.count-concurrency:10}")
+    private int countConcurrency;
+
+    // SETIAP COUNT DI VIRTUAL THREAD SENDIRI, JUMLAHNYA DIBATASI countPermits SUPAYA TIDAK MENGHABISKAN POOL HIKARI
+    private final ExecutorService countExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Semaphore countPermits;
+
+    private Counter countTimeouts;
+
+    private Counter countSkipped;
+
+    private Counter countFailures;
+
+    @PostConstruct
+    void init() {
+        countPermits = new Semaphore(countConcurrency);
+        countTimeouts = Counter.builder("contact.search.count.timeout").register(meterRegistry);
+        countSkipped = Counter.builder("contact.search.count.skipped").register(meterRegistry);
+        countFailures = Counter.builder("contact.search.count.failure").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        countExecutor.shutdownNow();
+    }
+
     @Transactional
-    public ContactResponse create(User user, CreateContactRequest request) {
+    public ContactResponse create(UserPrincipal user, CreateContactRequest request) {
         validationService.validate(request);
 
         Contact contact = new Contact();
@@ -41,10 +125,11 @@ public class ContactService {
         contact.setFirstName(request.getFirstName());
         contact.setLastName(request.getLastName());
         contact.setEmail(request.getEmail());
-        contact.setPhone(request.getPhone());
-        contact.setUser(user);
+        contact.setPhone(SearchNormalizer.phone(request.getPhone()));
+        contact.setUser(userRepository.getReferenceById(user.getUsername()));
 
         contactRespository.save(contact);
+        userCounterRepository.increment(user.getUsername(), 1, 0);
 
         return toContactResponse(contact);
     }
@@ -56,70 +141,289 @@ public class ContactService {
                 .lastName(contact.getLastName())
                 .email(contact.getEmail())
                 .phone(contact.getPhone())
+                .version(contact.getVersion())
                 .build();
     }
 
     @org.springframework.transaction.annotation.Transactional(readOnly = true)
-    public ContactResponse get(User user,String id) {
-        Contact contact = contactRespository.findFirstByUserAndId(user, id)
+    public ContactResponse get(UserPrincipal user,String id) {
+        return contactRespository.findResponseByUsernameAndId(user.getUsername(), id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact not found"));
+    }
+
+    @Transactional
+    public ContactResponse update(UserPrincipal user, UpdateContactRequest request) {
+        validationService.validate(request);
+
+        Contact contact = new Contact();
+        contact.setId(request.getId());
+        contact.setFirstName(request.getFirstName());
+        contact.setLastName(request.getLastName());
+        contact.setEmail(request.getEmail());
+        contact.setPhone(SearchNormalizer.phone(request.getPhone()));
+        contact.setUser(userRepository.getReferenceById(user.getUsername()));
+        contact.normalize();
+
+        // SATU UPDATE TANPA SELECT DULU, DENGAN If-Match HANYA BERHASIL JIKA version DI DATABASE MASIH SAMA
+        if (contactRespository.update(user.getUsername(), contact, request.getVersion()) == 0) {
+            if (Objects.nonNull(request.getVersion())
+                    && contactRespository.existsByUserUsernameAndId(user.getUsername(), request.getId())) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Contact has been modified");
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact not found");
+        }
 
+        // BULK UPDATE TIDAK MEMANGGIL ContactListener
+        contactIndex.index(contact);
+        contactSuggester.put(contact);
+
+        // TANPA If-Match VERSION BARU TIDAK DIKETAHUI TANPA SELECT, version DI RESPONSE null
+        contact.setVersion(Objects.nonNull(request.getVersion()) ? request.getVersion() + 1 : null);
         return toContactResponse(contact);
     }
 
     @Transactional
-    public ContactResponse update(User user, UpdateContactRequest request) {
-        validationService.validate(request);
+    public ContactResponse patch(UserPrincipal user, String id, JsonNode body, Long version) {
+        MergePatch patch = MergePatch.of(body, PATCH_FIELDS);
 
-        Contact contact = contactRespository.findFirstByUserAndId(user, request.getId())
+        Contact contact = contactRespository.findFirstByUserUsernameAndId(user.getUsername(), id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Contact not found"));
+        if (Objects.nonNull(version) && !version.equals(contact.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Contact has been modified");
+        }
+
+        // HASIL PATCH DIVALIDASI DENGAN ATURAN YANG SAMA SEPERTI PUT
+        UpdateContactRequest request = UpdateContactRequest.builder()
+                .id(id)
+                .firstName(patch.text("firstName", contact.getFirstName()))
+                .lastName(patch.text("lastName", contact.getLastName()))
+                .email(patch.text("email", contact.getEmail()))
+                .phone(patch.text("phone", contact.getPhone()))
+                .build();
+        validationService.validate(request);
 
         contact.setFirstName(request.getFirstName());
         contact.setLastName(request.getLastName());
         contact.setEmail(request.getEmail());
-        contact.setPhone(request.getPhone());
-        contactRespository.save(contact);
+        contact.setPhone(SearchNormalizer.phone(request.getPhone()));
+        contact.normalize();
+
+        // @DynamicUpdate : HANYA KOLOM YANG BERUBAH DITULIS, TANPA PERUBAHAN TIDAK ADA UPDATE SAMA SEKALI
+        // version DICEK DI UPDATE, PENULIS LAIN DI ANTARA SELECT DAN UPDATE MENJADI 412
+        try {
+            contactRespository.saveAndFlush(contact);
+        } catch (ObjectOptimisticLockingFailureException exception) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Contact has been modified");
+        }
 
         return toContactResponse(contact);
     }
 
     @Transactional
-    public void delete(User user, String id) {
+    public void delete(UserPrincipal user, String id) {
 
-        Contact contact = contactRespository.findFirstByUserAndId(user, id)
+        Contact contact = contactRespository.findFirstByUserUsernameAndId(user.getUsername(), id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact not found"));
 
         contactRespository.delete(contact);
+        userCounterRepository.increment(user.getUsername(), -1, 0);
     }
 
     @org.springframework.transaction.annotation.Transactional(readOnly = true)
-    public Page<ContactResponse> search(User user, SearchContactRequest request){
-        // MENGATASI PARAMETER YANG DINAMIS
-        Specification<Contact>specification = (root, query, builder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            predicates.add(builder.equal(root.get("user"), user));
-            if (Objects.nonNull(request.getName())) {
-                predicates.add(builder.or(
-                        builder.like(root.get("firstName"), "%" + request.getName() + "%"),
-                        builder.like(root.get("lastName"), "%" + request.getName() + "%")
-                ));
+    public CursorPage<ContactResponse> search(UserPrincipal user, SearchContactRequest request){
+        SearchCursor cursor = Objects.nonNull(request.getCursor()) ? SearchCursor.decode(request.getCursor()) : null;
+        TotalMode totalMode = TotalMode.of(request.getTotal());
+        MatchMode matchMode = MatchMode.of(request.getMatch());
+        // MODE CURSOR SELALU MULAI DARI OFFSET 0, JADI BIAYANYA SAMA UNTUK HALAMAN BERAPA PUN
+        int page = Objects.nonNull(cursor) ? 0 : request.getPage();
+        boolean addressFiltered = hasText(request.getCity()) || hasText(request.getProvince())
+                || hasText(request.getCountry()) || hasText(request.getPostalCode());
+        boolean contactFiltered = hasText(request.getName()) || hasText(request.getEmail()) || hasText(request.getPhone()) || addressFiltered;
+        List<String> tags = tagsOf(request.getTags());
+        TagMode tagMode = TagMode.of(request.getTagMode());
+        boolean filtered = contactFiltered || !tags.isEmpty();
+        // TANPA FILTER, TOTAL DIAMBIL DARI user_counters TANPA COUNT
+        Long counted = !filtered && totalMode == TotalMode.EXACT
+                ? userCounterRepository.findContactsByUsername(user.getUsername()).orElse(0L)
+                : null;
+
+        // HANYA FILTER TAG, DIJAWAB DARI BITMAP DI MEMORY
+        if (!tags.isEmpty() && !contactFiltered) {
+            return searchTags(user, tags, tagMode, cursor, PageRequest.of(page, request.getSize()), totalMode);
+        }
+
+        // PREFIX SELALU KE DATABASE, INDEX LUCENE MENILAI RELEVANSI BUKAN AWALAN
+        // FILTER ADDRESS DAN TAG JUGA KE DATABASE KARENA KEDUANYA TIDAK ADA DI INDEX LUCENE
+        if (contactIndex.isEnabled() && matchMode == MatchMode.CONTAINS && !addressFiltered && tags.isEmpty()) {
+            return searchIndex(user, request, cursor, PageRequest.of(page, request.getSize()), totalMode, counted);
+        }
+
+        // PHONE DISIMPAN HANYA DIGIT, JADI PENCARIAN JUGA HANYA DIGIT SUPAYA "0812-345" SAMA DENGAN "0812345"
+        ContactSearchQuery query = ContactSearchQuery.of(user.getUsername(), matchMode,
+                request.getName(), request.getEmail(), phoneTerm(request.getPhone()))
+                .address(textOrNull(request.getCity()), textOrNull(request.getProvince()),
+                        textOrNull(request.getCountry()), textOrNull(request.getPostalCode()))
+                .tags(tags, tagMode == TagMode.ALL);
+
+        Pageable pageable = PageRequest.of(page, request.getSize());
+        // COUNT JALAN PARALEL DI CONNECTION LAIN SELAMA QUERY HALAMAN BERJALAN
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(countTimeoutMs);
+        Future<Long> count = null;
+        boolean skipped = false;
+        if (Objects.isNull(counted) && totalMode != TotalMode.NONE) {
+            // SEMUA PERMIT TERPAKAI = BANYAK COUNT LAMBAT BERJALAN, COUNT DILEWATI DAN TOTAL DIKIRIM SEBAGAI BATAS BAWAH
+            if (countPermits.tryAcquire()) {
+                count = countExecutor.submit(() -> {
+                    try {
+                        return totalMode == TotalMode.EXACT
+                                ? contactRespository.countWithTimeout(query, countQueryTimeoutMs)
+                                : contactRespository.countUpTo(query, estimateCap, countQueryTimeoutMs);
+                    } finally {
+                        countPermits.release();
+                    }
+                });
+            } else {
+                countSkipped.increment();
+                skipped = true;
             }
-            if (Objects.nonNull(request.getEmail())) {
-                predicates.add(builder.like(root.get("email"), "%" + request.getEmail() + "%"));
+        }
+
+        // AMBIL SATU LEBIH UNTUK TAHU MASIH ADA HALAMAN BERIKUTNYA, TANPA COUNT
+        List<ContactResponse> contacts = Objects.nonNull(cursor)
+                ? contactRespository.findResponses(query.after(cursor.id()), 0, pageable.getPageSize() + 1)
+                : contactRespository.findResponses(query, pageable.getOffset(), pageable.getPageSize() + 1);
+
+        String nextCursor = null;
+        if (contacts.size() > pageable.getPageSize()) {
+            contacts = contacts.subList(0, pageable.getPageSize());
+            nextCursor = new SearchCursor(0, contacts.get(contacts.size() - 1).getId()).encode();
+        }
+
+        // TOTAL MINIMAL YANG SUDAH DIKETAHUI DARI HALAMAN INI
+        long lowerBound = pageable.getOffset() + contacts.size() + (Objects.nonNull(nextCursor) ? 1 : 0);
+        Long total = skipped ? Long.valueOf(lowerBound) : counted;
+        boolean estimated = skipped;
+        if (Objects.nonNull(count)) {
+            try {
+                total = count.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                estimated = totalMode == TotalMode.ESTIMATE && total >= estimateCap;
+            } catch (TimeoutException | InterruptedException exception) {
+                if (exception instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                // COUNT TERLAMBAT, HALAMAN TETAP DIKIRIM DENGAN TOTAL MINIMAL YANG SUDAH DIKETAHUI
+                // COUNT TIDAK DI-INTERRUPT (INTERRUPT DI TENGAH JDBC MEMBUAT HIKARI MEMBUANG CONNECTION),
+                // QUERY DIHENTIKAN SERVER OLEH QUERY TIMEOUT LALU PERMIT KEMBALI
+                countTimeouts.increment();
+                total = lowerBound;
+                estimated = true;
+            } catch (ExecutionException exception) {
+                // COUNT GAGAL (TERMASUK QUERY TIMEOUT) TIDAK MENGGAGALKAN HALAMAN YANG SUDAH DIAMBIL
+                log.warn("Contact count failed, returning lower bound", exception.getCause());
+                countFailures.increment();
+                total = lowerBound;
+                estimated = true;
             }
-            if (Objects.nonNull(request.getPhone())) {
-                predicates.add(builder.like(root.get("phone"), "%" + request.getPhone() + "%"));
+        }
+
+        return new CursorPage<>(contacts, pageable, total, estimated, nextCursor);
+    }
+
+    // TIDAK PERLU TRANSAKSI, SAAT DATA USER SUDAH DI MEMORY TIDAK ADA AKSES DATABASE
+    public List<ContactSuggestionResponse> suggest(UserPrincipal user, String query, Integer limit) {
+        return contactSuggester.suggest(user.getUsername(), query, limit);
+    }
+
+    // ID DICARI DI BITMAP TAG, DATABASE HANYA UNTUK MENGAMBIL DATA CONTACT-NYA. TOTAL SELALU PASTI
+    private CursorPage<ContactResponse> searchTags(UserPrincipal user, List<String> tags, TagMode tagMode, SearchCursor cursor,
+                                                   Pageable pageable, TotalMode totalMode) {
+        ContactTagIndex.Hits hits = contactTagIndex.search(user.getUsername(), tags, tagMode == TagMode.ALL,
+                Objects.nonNull(cursor) ? cursor.id() : null, pageable.getOffset(), pageable.getPageSize());
+
+        Map<String, ContactResponse> contacts = new HashMap<>();
+        if (!hits.ids().isEmpty()) {
+            for (ContactResponse contact : contactRespository.findResponsesByUsernameAndIdIn(user.getUsername(), hits.ids())) {
+                contacts.put(contact.getId(), contact);
+            }
+        }
+
+        List<ContactResponse> contactResponses = hits.ids().stream()
+                .map(contacts::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        String nextCursor = hits.hasNext() ? new SearchCursor(0, hits.ids().get(hits.ids().size() - 1)).encode() : null;
+        Long total = totalMode == TotalMode.NONE ? null : hits.total();
+        return new CursorPage<>(contactResponses, pageable, total, false, nextCursor);
+    }
+
+    // ID DICARI DI INDEX LUCENE, DATABASE HANYA UNTUK MENGAMBIL DATA CONTACT-NYA
+    private CursorPage<ContactResponse> searchIndex(UserPrincipal user, SearchContactRequest request, SearchCursor cursor,
+                                                    Pageable pageable, TotalMode totalMode, Long counted) {
+        int countUpTo = switch (totalMode) {
+            case EXACT -> Objects.nonNull(counted) ? 0 : Integer.MAX_VALUE;
+            case ESTIMATE -> estimateCap;
+            case NONE -> 0;
+        };
+
+        ContactIndex.Hits hits;
+        try {
+            hits = contactIndex.search(user.getUsername(), request.getName(), request.getEmail(), phoneTerm(request.getPhone()),
+                    cursor, (int) pageable.getOffset(), pageable.getPageSize(), countUpTo);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        Map<String, ContactResponse> contacts = new HashMap<>();
+        if (!hits.ids().isEmpty()) {
+            for (ContactResponse contact : contactRespository.findResponsesByUsernameAndIdIn(user.getUsername(), hits.ids())) {
+                contacts.put(contact.getId(), contact);
             }
+        }
+
+        // URUTAN MENGIKUTI RELEVANSI DARI INDEX
+        List<ContactResponse> contactResponses = hits.ids().stream()
+                .map(contacts::get)
+                .filter(Objects::nonNull)
+                .toList();
 
-            return query.where(predicates.toArray(new Predicate[]{})).getRestriction();
+        Long total = switch (totalMode) {
+            case EXACT -> Objects.nonNull(counted) ? counted : hits.total();
+            case ESTIMATE -> hits.total();
+            case NONE -> null;
         };
+        boolean estimated = totalMode == TotalMode.ESTIMATE && !hits.totalExact();
+        return new CursorPage<>(contactResponses, pageable, total, estimated, hits.nextCursor());
+    }
 
-        Pageable pageable = PageRequest.of(request.getPage(),request.getSize());
-        Page<Contact> contacts = contactRespository.findAll(specification, pageable);
-        List<ContactResponse> contactResponses = contacts.getContent().stream()
-                .map(this::toContactResponse)
+    // PHONE TERSIMPAN HANYA DIGIT, TERM TANPA DIGIT DITOLAK SUPAYA TIDAK MENJADI FILTER KOSONG YANG COCOK DENGAN SEMUA
+    private String phoneTerm(String value) {
+        if (!hasText(value)) {
+            return null;
+        }
+        String digits = SearchNormalizer.digits(value);
+        if (digits.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Phone must contain digits");
+        }
+        return digits;
+    }
+
+    private List<String> tagsOf(List<String> values) {
+        if (Objects.isNull(values)) {
+            return List.of();
+        }
+        return values.stream()
+                .map(SearchNormalizer::tag)
+                .filter(this::hasText)
+                .distinct()
                 .toList();
+    }
+
+    private String textOrNull(String value) {
+        return hasText(value) ? value : null;
+    }
 
-        return new PageImpl<>(contactResponses, pageable, contacts.getTotalElements());
+    private boolean hasText(String value) {
+        return Objects.nonNull(value) && !value.isEmpty();
     }
 }
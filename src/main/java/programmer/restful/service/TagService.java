@@ -0,0 +1,73 @@
+package programmer.restful.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import programmer.restful.entity.Contact;
+import programmer.restful.model.UserPrincipal;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.ContactTagRepository;
+import programmer.restful.search.ContactTagIndex;
+import programmer.restful.search.SearchNormalizer;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+@Service
+public class TagService {
+
+    private static final Pattern TAG = Pattern.compile("[\\p{L}\\p{N}_-]{1,50}");
+
+    @Autowired
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private ContactTagRepository contactTagRepository;
+
+    @Autowired
+    private ContactTagIndex contactTagIndex;
+
+    @Transactional(readOnly = true)
+    public List<String> list(UserPrincipal user, String idContact) {
+        if (!contactRespository.existsByUserUsernameAndId(user.getUsername(), idContact)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact is not found");
+        }
+
+        return contactTagRepository.findTagsByContactId(idContact);
+    }
+
+    @Transactional
+    public List<String> add(UserPrincipal user, String idContact, String tag) {
+        String name = validTag(tag);
+        Contact contact = contactRespository.findFirstByUserUsernameAndId(user.getUsername(), idContact)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact is not found"));
+
+        // TAG YANG SUDAH ADA TIDAK DIANGGAP ERROR
+        if (contactTagRepository.insertIfAbsent(contact.getId(), name) > 0) {
+            contactTagIndex.tag(user.getUsername(), contact.getId(), name);
+        }
+        return contactTagRepository.findTagsByContactId(contact.getId());
+    }
+
+    @Transactional
+    public void remove(UserPrincipal user, String idContact, String tag) {
+        String name = SearchNormalizer.tag(tag);
+        Contact contact = contactRespository.findFirstByUserUsernameAndId(user.getUsername(), idContact)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact is not found"));
+
+        if (contactTagRepository.deleteByContactIdAndTag(contact.getId(), name) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tag is not found");
+        }
+        contactTagIndex.untag(user.getUsername(), contact.getId(), name);
+    }
+
+    private String validTag(String tag) {
+        String name = SearchNormalizer.tag(tag);
+        if (name == null || !TAG.matcher(name).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tag must be 1-50 letters, digits, - or _");
+        }
+        return name;
+    }
+}
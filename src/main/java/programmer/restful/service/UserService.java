@@ -8,9 +8,10 @@ import org.springframework.web.server.ResponseStatusException;
 import programmer.restful.entity.User;
 import programmer.restful.model.RegisterUserRequest;
 import programmer.restful.model.UpdateUserRequest;
+import programmer.restful.model.UserPrincipal;
 import programmer.restful.model.UserResponse;
 import programmer.restful.repository.UserRepository;
-import programmer.restful.security.BCrypt;
+import programmer.restful.security.PasswordHasher;
 
 import java.util.Objects;
 
@@ -23,6 +24,9 @@ public class UserService {
     @Autowired
     private ValidationService validationService;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
     // MEMBUAT VALIDASI
     @Transactional
     public void register(RegisterUserRequest request){
@@ -36,13 +40,13 @@ public class UserService {
         // MEMBUAT ENTITY USER DAN DI SAVE
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(BCrypt.hashpw(request.getPassword(), BCrypt.gensalt()));
+        user.setPassword(passwordHasher.hash(request.getPassword()));
         user.setName(request.getUsername());
 
         userRepository.save(user);
     }
 
-    public UserResponse get(User user){
+    public UserResponse get(UserPrincipal user){
         return UserResponse.builder()
                 .username(user.getUsername())
                 .name(user.getName())
@@ -50,15 +54,18 @@ public class UserService {
     }
 
     @Transactional
-    public UserResponse update(User user, UpdateUserRequest request){
+    public UserResponse update(UserPrincipal principal, UpdateUserRequest request){
         validationService.validate(request);
 
+        User user = userRepository.findById(principal.getUsername())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized"));
+
         if (Objects.nonNull(request.getName())){
             user.setName(request.getName());
         }
 
         if (Objects.nonNull(request.getPassword())){
-            user.setPassword(BCrypt.hashpw(request.getPassword(), BCrypt.gensalt()));
+            user.setPassword(passwordHasher.hash(request.getPassword()));
         }
         userRepository.save(user);
 
@@ -11,6 +11,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import programmer.restful.entity.Address;
 import programmer.restful.entity.Contact;
+import programmer.restful.entity.Session;
 import programmer.restful.entity.User;
 import programmer.restful.model.AddressResponse;
 import programmer.restful.model.CreateAddressRequest;
@@ -18,6 +19,7 @@ import programmer.restful.model.UpdateAddressRequest;
 import programmer.restful.model.WebResponse;
 import programmer.restful.repository.AddressRepository;
 import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.SessionRepository;
 import programmer.restful.repository.UserRepository;
 import programmer.restful.security.BCrypt;
 
@@ -44,6 +46,9 @@ class AddressControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
     @Autowired
     private ContactRespository contactRespository;
 
@@ -54,16 +59,21 @@ class AddressControllerTest {
     void setUp() {
         addressRepository.deleteAll();
         contactRespository.deleteAll();
+        sessionRepository.deleteAll();
         userRepository.deleteAll();
 
         User user = new User();
         user.setUsername("test");
-        user.setToken("test");
         user.setPassword(BCrypt.hashpw("rahasia",BCrypt.gensalt()));
         user.setName("Test");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 10000000000000L);
         userRepository.save(user);
 
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(user);
+        session.setExpiredAt(System.currentTimeMillis() + 10000000000000L);
+        sessionRepository.save(session);
+
         Contact contact = new Contact();
         contact.setUser(user);
         contact.setId("test");
@@ -174,6 +184,46 @@ class AddressControllerTest {
             assertEquals(address.getProvince(),response.getData().getProvince());
             assertEquals(address.getCountry(),response.getData().getCountry());
             assertEquals(address.getCity(),response.getData().getCity());
+            assertEquals(0L,response.getData().getVersion());
+        });
+    }
+
+    @Test
+    void getAndListAddressWithNullFields() throws Exception {
+        Contact contact = contactRespository.findById("test").orElseThrow();
+
+        Address address = new Address();
+        address.setContact(contact);
+        address.setId("test");
+        address.setCountry("Indonesia");
+        addressRepository.save(address);
+
+        AddressResponse expected = new AddressResponse("test", null, null, "Indonesia", null, null, 0L);
+
+        mockMvc.perform(
+                get("/api/contacts/test/addresses/test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<AddressResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(expected, response.getData());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts/test/addresses")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<AddressResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(List.of(expected), response.getData());
         });
     }
 
@@ -230,6 +280,129 @@ class AddressControllerTest {
         });
     }
 
+    @Test
+    void patchAddress() throws Exception {
+        Contact contact = contactRespository.findById("test").orElseThrow();
+
+        Address address = new Address();
+        address.setContact(contact);
+        address.setId("test");
+        address.setCity("Jakarta");
+        address.setCountry("Indonesia");
+        addressRepository.save(address);
+
+        mockMvc.perform(
+                patch("/api/contacts/test/addresses/test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "\"0\"")
+                        .content("{\"street\":\"Jalan Merdeka\",\"city\":null}")
+        ).andExpectAll(
+                status().isOk(),
+                header().string("ETag", "\"1\"")
+        ).andDo(result -> {
+            WebResponse<AddressResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals("Jalan Merdeka", response.getData().getStreet());
+            assertNull(response.getData().getCity());
+            assertEquals("Indonesia", response.getData().getCountry());
+        });
+
+        mockMvc.perform(
+                patch("/api/contacts/test/addresses/test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "\"0\"")
+                        .content("{\"city\":\"Bandung\"}")
+        ).andExpectAll(
+                status().isPreconditionFailed()
+        );
+
+        mockMvc.perform(
+                patch("/api/contacts/test/addresses/test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .header("X-API-TOKEN","test")
+                        .content("{\"country\":null}")
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+
+        mockMvc.perform(
+                patch("/api/contacts/test/addresses/test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .header("X-API-TOKEN","test")
+                        .content("[]")
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+
+        mockMvc.perform(
+                patch("/api/contacts/test/addresses/salah")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .header("X-API-TOKEN","test")
+                        .content("{\"city\":\"Bandung\"}")
+        ).andExpectAll(
+                status().isNotFound()
+        );
+    }
+
+    @Test
+    void updateAddressIfMatch() throws Exception {
+        Contact contact = contactRespository.findById("test").orElseThrow();
+
+        Address address = new Address();
+        address.setContact(contact);
+        address.setId("test");
+        address.setCountry("Indonesia");
+        addressRepository.save(address);
+
+        UpdateAddressRequest request = new UpdateAddressRequest();
+        request.setCountry("Jepang");
+
+        mockMvc.perform(
+                put("/api/contacts/test/addresses/test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "\"0\"")
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isOk(),
+                header().string("ETag", "\"1\"")
+        );
+
+        request.setCountry("Korea");
+        mockMvc.perform(
+                put("/api/contacts/test/addresses/test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "\"0\"")
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isPreconditionFailed()
+        );
+
+        mockMvc.perform(
+                get("/api/contacts/test/addresses/test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+        ).andExpectAll(
+                status().isOk(),
+                header().string("ETag", "\"1\"")
+        ).andDo(result -> {
+            WebResponse<AddressResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertEquals("Jepang", response.getData().getCountry());
+        });
+    }
+
     @Test
     void deleteAddressFailed() throws Exception {
 
@@ -326,4 +499,67 @@ class AddressControllerTest {
             assertEquals(5, response.getData().size());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void addressOfOtherUserNotFound() throws Exception {
+        User other = new User();
+        other.setUsername("other");
+        other.setPassword(BCrypt.hashpw("rahasia",BCrypt.gensalt()));
+        other.setName("Other");
+        userRepository.save(other);
+
+        Contact contact = new Contact();
+        contact.setUser(other);
+        contact.setId("other");
+        contact.setFirstName("Budi");
+        contactRespository.save(contact);
+
+        Address address = new Address();
+        address.setContact(contact);
+        address.setId("other");
+        address.setCountry("Indonesia");
+        addressRepository.save(address);
+
+        UpdateAddressRequest request = new UpdateAddressRequest();
+        request.setCountry("Jepang");
+
+//        ID CONTACT DAN ADDRESS BENAR, TAPI BUKAN MILIK USER "test"
+        mockMvc.perform(
+                get("/api/contacts/other/addresses/other")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+        ).andExpectAll(
+                status().isNotFound()
+        );
+
+        mockMvc.perform(
+                put("/api/contacts/other/addresses/other")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isNotFound()
+        );
+
+        mockMvc.perform(
+                delete("/api/contacts/other/addresses/other")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+        ).andExpectAll(
+                status().isNotFound()
+        );
+
+        mockMvc.perform(
+                get("/api/contacts/other/addresses")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+        ).andExpectAll(
+                status().isNotFound()
+        );
+
+        Address unchanged = addressRepository.findById("other").orElseThrow();
+        assertEquals("Indonesia", unchanged.getCountry());
+    }
+}
@@ -9,12 +9,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import programmer.restful.entity.Session;
 import programmer.restful.entity.User;
 import programmer.restful.model.LoginUserRequest;
 import programmer.restful.model.TokenResponse;
 import programmer.restful.model.WebResponse;
+import programmer.restful.repository.SessionRepository;
 import programmer.restful.repository.UserRepository;
 import programmer.restful.security.BCrypt;
+import programmer.restful.security.PasswordHasher;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -30,14 +33,21 @@ class AuthControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
     @BeforeEach
     void setUp() {
+        sessionRepository.deleteAll();
         userRepository.deleteAll();
     }
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
     @Test
     void loginFailedUserNotFound() throws Exception {
         LoginUserRequest request = new LoginUserRequest();
@@ -110,11 +120,162 @@ class AuthControllerTest {
             assertNotNull(response.getData().getToken());
             assertNotNull(response.getData().getExpiredAt());
 
+            Session sessionDb = sessionRepository.findById(response.getData().getToken()).orElse(null);
+            assertNotNull(sessionDb);
+            assertEquals(sessionDb.getExpiredAt(), response.getData().getExpiredAt());
+
+            // 30 HARI DARI SEKARANG
+            long expected = System.currentTimeMillis() + 30L * 24 * 60 * 60 * 1000;
+            assertTrue(Math.abs(expected - response.getData().getExpiredAt()) < 60000);
+        });
+
+    }
+
+    @Test
+    void loginSuccessRehashLowCostPassword() throws Exception {
+        User user = new User();
+        user.setName("Test");
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("test", BCrypt.gensalt(4)));
+        userRepository.save(user);
+
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername("test");
+        request.setPassword("test");
+
+        mockMvc.perform(
+                post("/api/auth/login")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
             User userDb = userRepository.findById("test").orElse(null);
             assertNotNull(userDb);
-            assertEquals(userDb.getToken(), response.getData().getToken());
-            assertEquals(userDb.getTokenExpiredAt(), response.getData().getExpiredAt());
+            assertFalse(passwordHasher.needsRehash(userDb.getPassword()));
+            assertTrue(BCrypt.checkpw("test", userDb.getPassword()));
+        });
+    }
+
+    @Test
+    void loginFailedTooManyAttempts() throws Exception {
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername("bruteforce");
+        request.setPassword("salah");
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(
+                    post("/api/auth/login")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request))
+            ).andExpectAll(
+                    status().isUnauthorized()
+            );
+        }
+
+        mockMvc.perform(
+                post("/api/auth/login")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isTooManyRequests()
+        ).andDo(result -> {
+            WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>()
+            {});
+            assertNotNull(response.getError());
         });
+    }
+
+    @Test
+    void loginNotLockedOutByThrottledIp() throws Exception {
+        User user = new User();
+        user.setName("Test");
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("test", BCrypt.gensalt(4)));
+        userRepository.save(user);
+
+        // IP PENYERANG MENGHABISKAN BUCKET IP-NYA (capacity 20) DENGAN USERNAME LAIN
+        LoginUserRequest spray = new LoginUserRequest();
+        spray.setPassword("salah");
+        for (int i = 0; i < 20; i++) {
+            spray.setUsername("spray" + i);
+            mockMvc.perform(
+                    post("/api/auth/login")
+                            .with(servletRequest -> {
+                                servletRequest.setRemoteAddr("10.0.0.1");
+                                return servletRequest;
+                            })
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(spray))
+            ).andExpectAll(
+                    status().isUnauthorized()
+            );
+        }
+
+        // SETELAH ITU PERCOBAAN KE "test" DITOLAK KARENA IP, TOKEN USERNAME "test" TIDAK TERPAKAI
+        LoginUserRequest attack = new LoginUserRequest();
+        attack.setUsername("test");
+        attack.setPassword("salah");
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(
+                    post("/api/auth/login")
+                            .with(servletRequest -> {
+                                servletRequest.setRemoteAddr("10.0.0.1");
+                                return servletRequest;
+                            })
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(attack))
+            ).andExpectAll(
+                    status().isTooManyRequests()
+            );
+        }
+
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername("test");
+        request.setPassword("test");
+        mockMvc.perform(
+                post("/api/auth/login")
+                        .with(servletRequest -> {
+                            servletRequest.setRemoteAddr("10.0.0.2");
+                            return servletRequest;
+                        })
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isOk()
+        );
+    }
+
+    @Test
+    void loginSuccessMultipleSessions() throws Exception {
+        User user = new User();
+        user.setName("Test");
+        user.setUsername("device");
+        user.setPassword(BCrypt.hashpw("test", BCrypt.gensalt()));
+        userRepository.save(user);
+
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername("device");
+        request.setPassword("test");
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(
+                    post("/api/auth/login")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request))
+            ).andExpectAll(
+                    status().isOk()
+            );
+        }
 
+        // LOGIN KEDUA TIDAK MENGHAPUS SESSION PERTAMA
+        assertEquals(2, sessionRepository.count());
     }
-}
\ No newline at end of file
+}
@@ -9,17 +9,26 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import programmer.restful.entity.Address;
 import programmer.restful.entity.Contact;
+import programmer.restful.entity.Session;
 import programmer.restful.entity.User;
 import programmer.restful.model.ContactResponse;
+import programmer.restful.model.ContactSuggestionResponse;
 import programmer.restful.model.CreateContactRequest;
 import programmer.restful.model.UpdateContactRequest;
 import programmer.restful.model.WebResponse;
+import programmer.restful.repository.AddressRepository;
 import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.SessionRepository;
+import programmer.restful.repository.UserCounterRepository;
 import programmer.restful.repository.UserRepository;
 import programmer.restful.security.BCrypt;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,24 +45,39 @@ class ContactControllerTest {
     @Autowired
     private ContactRespository contactRespository;
 
+    @Autowired
+    private AddressRepository addressRepository;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserCounterRepository userCounterRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() {
+        addressRepository.deleteAll();
         contactRespository.deleteAll();
+        sessionRepository.deleteAll();
         userRepository.deleteAll();
 
         User user = new User();
         user.setName("Ibnu");
         user.setUsername("ibnu");
         user.setPassword(BCrypt.hashpw("ibnu",BCrypt.gensalt()));
-        user.setToken("test");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 100000000000L);
         userRepository.save(user);
+
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(user);
+        session.setExpiredAt(System.currentTimeMillis() + 100000000000L);
+        sessionRepository.save(session);
     }
 
     @Test
@@ -153,7 +177,52 @@ class ContactControllerTest {
             assertEquals(contact.getLastName(),response.getData().getLastName());
             assertEquals(contact.getEmail(),response.getData().getEmail());
             assertEquals(contact.getPhone(),response.getData().getPhone());
+            assertEquals(0L,response.getData().getVersion());
+        });
+    }
+
+    @Test
+    void getAndSearchContactWithNullFields() throws Exception {
+        User user = userRepository.findById("ibnu").orElseThrow();
+
+        Contact contact = new Contact();
+        contact.setUser(user);
+        contact.setId(UUID.randomUUID().toString());
+        contact.setFirstName("Ibnu");
+        contactRespository.save(contact);
+
+        ContactResponse expected = new ContactResponse(contact.getId(), "Ibnu", null, null, null, 0L);
+
+        mockMvc.perform(
+                get("/api/contacts/" + contact.getId())
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN","test")
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<ContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(expected, response.getData());
         });
+
+//        contains DIJAWAB INDEX LUCENE LALU DIAMBIL PER id, prefix LANGSUNG DARI DATABASE, PROJECTION-NYA BERBEDA
+        for (String match : new String[]{"contains", "prefix"}) {
+            mockMvc.perform(
+                    get("/api/contacts")
+                            .queryParam("name", "Ibnu")
+                            .queryParam("match", match)
+                            .header("X-API-TOKEN", "test")
+                            .accept(MediaType.APPLICATION_JSON)
+            ).andExpectAll(
+                    status().isOk()
+            ).andDo(result -> {
+                WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+                });
+                assertNull(response.getError());
+                assertEquals(List.of(expected), response.getData(), match);
+            });
+        }
     }
 
     @Test
@@ -219,6 +288,180 @@ class ContactControllerTest {
         });
     }
 
+    @Test
+    void updateContactIfMatch() throws Exception {
+        User user = userRepository.findById("ibnu").orElseThrow();
+
+        Contact contact = new Contact();
+        contact.setUser(user);
+        contact.setId(UUID.randomUUID().toString());
+        contact.setFirstName("Ibnu");
+        contactRespository.save(contact);
+
+        mockMvc.perform(
+                get("/api/contacts/" + contact.getId())
+                        .header("X-API-TOKEN","test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk(),
+                header().string("ETag", "\"0\"")
+        );
+
+        mockMvc.perform(
+                get("/api/contacts/" + contact.getId())
+                        .header("X-API-TOKEN","test")
+                        .header("If-None-Match", "\"0\"")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isNotModified()
+        );
+
+        UpdateContactRequest request = new UpdateContactRequest();
+        request.setFirstName("Budi");
+
+        mockMvc.perform(
+                put("/api/contacts/" + contact.getId())
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "\"0\"")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isOk(),
+                header().string("ETag", "\"1\"")
+        ).andDo(result -> {
+            WebResponse<ContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals("Budi", response.getData().getFirstName());
+            assertEquals(1L, response.getData().getVersion());
+        });
+
+//        PENULIS LAIN MASIH MEMAKAI VERSION LAMA, TIDAK MENIMPA PERUBAHAN DI ATAS
+        request.setFirstName("Joko");
+        mockMvc.perform(
+                put("/api/contacts/" + contact.getId())
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "\"0\"")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isPreconditionFailed()
+        ).andDo(result -> {
+            WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNotNull(response.getError());
+        });
+        assertEquals("Budi", contactRespository.findById(contact.getId()).orElseThrow().getFirstName());
+
+        mockMvc.perform(
+                put("/api/contacts/salah")
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "\"1\"")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isNotFound()
+        );
+
+        mockMvc.perform(
+                put("/api/contacts/" + contact.getId())
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "bukan-etag")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isPreconditionFailed()
+        );
+    }
+
+    @Test
+    void patchContact() throws Exception {
+        User user = userRepository.findById("ibnu").orElseThrow();
+
+        Contact contact = new Contact();
+        contact.setUser(user);
+        contact.setId(UUID.randomUUID().toString());
+        contact.setFirstName("Ibnu");
+        contact.setLastName("Rabbani");
+        contact.setEmail("ibnu@example.com");
+        contactRespository.save(contact);
+
+//        FIELD YANG TIDAK DIKIRIM TETAP, FIELD null DIKOSONGKAN
+        mockMvc.perform(
+                patch("/api/contacts/" + contact.getId())
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "\"0\"")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"email\":\"bani@example.com\",\"lastName\":null}")
+        ).andExpectAll(
+                status().isOk(),
+                header().string("ETag", "\"1\"")
+        ).andDo(result -> {
+            WebResponse<ContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals("Ibnu", response.getData().getFirstName());
+            assertNull(response.getData().getLastName());
+            assertEquals("bani@example.com", response.getData().getEmail());
+            assertEquals(1L, response.getData().getVersion());
+        });
+
+        mockMvc.perform(
+                patch("/api/contacts/" + contact.getId())
+                        .header("X-API-TOKEN","test")
+                        .header("If-Match", "\"0\"")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"firstName\":\"Joko\"}")
+        ).andExpectAll(
+                status().isPreconditionFailed()
+        );
+
+        mockMvc.perform(
+                patch("/api/contacts/" + contact.getId())
+                        .header("X-API-TOKEN","test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"firstName\":null}")
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+
+        mockMvc.perform(
+                patch("/api/contacts/" + contact.getId())
+                        .header("X-API-TOKEN","test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"nama\":\"Joko\"}")
+        ).andExpectAll(
+                status().isBadRequest()
+        ).andDo(result -> {
+            WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNotNull(response.getError());
+        });
+
+        mockMvc.perform(
+                patch("/api/contacts/salah")
+                        .header("X-API-TOKEN","test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"firstName\":\"Joko\"}")
+        ).andExpectAll(
+                status().isNotFound()
+        );
+
+        Contact saved = contactRespository.findById(contact.getId()).orElseThrow();
+        assertEquals("Ibnu", saved.getFirstName());
+        assertNull(saved.getLastName());
+        assertEquals("bani@example.com", saved.getEmail());
+    }
+
     @Test
     void contactFailedToDelete() throws Exception {
 
@@ -399,4 +642,581 @@ class ContactControllerTest {
             assertEquals(10,response.getPaging().getSize());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchFuzzyAndRanking() throws Exception {
+        User user = userRepository.findById("ibnu").orElseThrow();
+
+        String[][] names = {{"Ibnu", "Rabbani"}, {"Ibnu", "Rabbaniyah"}, {"Budi", "Santoso"}};
+        for (String[] name : names) {
+            Contact contact = new Contact();
+            contact.setUser(user);
+            contact.setId(UUID.randomUUID().toString());
+            contact.setFirstName(name[0]);
+            contact.setLastName(name[1]);
+            contactRespository.save(contact);
+        }
+
+//        SALAH KETIK TETAP KETEMU, YANG PALING MIRIP DI URUTAN PERTAMA
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "Rabani")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(1, response.getData().size());
+            assertEquals("Rabbani", response.getData().get(0).getLastName());
+        });
+
+//        SUBSTRING DI TENGAH KATA
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "bbani")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(2, response.getData().size());
+        });
+
+//        EXACT MATCH DI ATAS PREFIX MATCH
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "Rabbani")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(2, response.getData().size());
+            assertEquals("Rabbani", response.getData().get(0).getLastName());
+            assertEquals("Rabbaniyah", response.getData().get(1).getLastName());
+        });
+    }
+
+    @Test
+    void searchWithCursor() throws Exception {
+        User user = userRepository.findById("ibnu").orElseThrow();
+
+        for (int i = 0; i < 25; i++) {
+            Contact contact = new Contact();
+            contact.setUser(user);
+            contact.setId(UUID.randomUUID().toString());
+            contact.setFirstName("Ibnu" + i);
+            contact.setLastName("Rabbani");
+            contactRespository.save(contact);
+        }
+
+        Set<String> ids = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            var request = get("/api/contacts")
+                    .queryParam("name", "Ibnu")
+                    .header("X-API-TOKEN", "test")
+                    .accept(MediaType.APPLICATION_JSON);
+            if (!cursor.isEmpty()) {
+                request.queryParam("cursor", cursor);
+            }
+
+            String content = mockMvc.perform(request)
+                    .andExpectAll(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(content, new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(3, response.getPaging().getTotalPages());
+            response.getData().forEach(contact -> ids.add(contact.getId()));
+
+            cursor = response.getPaging().getNextCursor();
+            pages++;
+        }
+
+//        SEMUA CONTACT MUNCUL TEPAT SATU KALI
+        assertEquals(3, pages);
+        assertEquals(25, ids.size());
+    }
+
+    @Test
+    void searchInvalidCursor() throws Exception {
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("cursor", "bukan-cursor")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+    }
+
+    @Test
+    void searchTotalFromCounter() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CreateContactRequest request = new CreateContactRequest();
+            request.setFirstName("Ibnu" + i);
+
+            String content = mockMvc.perform(
+                    post("/api/contacts")
+                            .header("X-API-TOKEN", "test")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request))
+            ).andExpectAll(
+                    status().isOk()
+            ).andReturn().getResponse().getContentAsString();
+            WebResponse<ContactResponse> response = objectMapper.readValue(content, new TypeReference<>() {
+            });
+            ids.add(response.getData().getId());
+        }
+
+        mockMvc.perform(
+                delete("/api/contacts/" + ids.get(0))
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        assertEquals(2L, userCounterRepository.findContactsByUsername("ibnu").orElse(0L));
+
+//        TANPA FILTER, TOTAL DARI user_counters
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("size", "1")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(2, response.getPaging().getTotalPages());
+            assertFalse(response.getPaging().getTotalEstimated());
+        });
+
+//        TOTAL TIDAK DIHITUNG, HALAMAN BERIKUTNYA DARI nextCursor
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("size", "1")
+                        .queryParam("name", "Ibnu")
+                        .queryParam("total", "false")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(1, response.getData().size());
+            assertNull(response.getPaging().getTotalPages());
+            assertNotNull(response.getPaging().getNextCursor());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("total", "salah")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+    }
+
+    @Test
+    void searchPrefix() throws Exception {
+        User user = userRepository.findById("ibnu").orElseThrow();
+
+        String[][] names = {{"José", "Álvarez", "Jose.Alvarez@example.com"}, {"Ibnu", "Rabbani", "ibnu@example.com"}, {"Budi", "Joseph", "budi@example.com"}};
+        for (String[] name : names) {
+            Contact contact = new Contact();
+            contact.setUser(user);
+            contact.setId(UUID.randomUUID().toString());
+            contact.setFirstName(name[0]);
+            contact.setLastName(name[1]);
+            contact.setEmail(name[2]);
+            contactRespository.save(contact);
+        }
+
+        Contact saved = contactRespository.findAll().stream()
+                .filter(contact -> contact.getFirstName().equals("José"))
+                .findFirst().orElseThrow();
+        assertEquals("jose alvarez", saved.getFullNameNormalized());
+        assertEquals("jose.alvarez@example.com", saved.getEmailNormalized());
+
+//        TANPA AKSEN DAN HURUF KECIL TETAP KETEMU, DARI AWAL NAMA LENGKAP ATAU AWAL LAST NAME
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "JOSE")
+                        .queryParam("match", "prefix")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(2, response.getData().size());
+            assertEquals(1, response.getPaging().getTotalPages());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "jose alv")
+                        .queryParam("match", "prefix")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(1, response.getData().size());
+            assertEquals("Jose.Alvarez@example.com", response.getData().get(0).getEmail());
+        });
+
+//        BUKAN AWALAN, TIDAK KETEMU
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("email", "example")
+                        .queryParam("match", "prefix")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(0, response.getData().size());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("match", "salah")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+    }
+
+    @Test
+    void searchNameWithLikeWildcards() throws Exception {
+        User user = userRepository.findById("ibnu").orElseThrow();
+
+        for (String firstName : new String[]{"Diskon 100%", "Diskon 1000", "a_b", "axb"}) {
+            Contact contact = new Contact();
+            contact.setUser(user);
+            contact.setId(UUID.randomUUID().toString());
+            contact.setFirstName(firstName);
+            contactRespository.save(contact);
+
+            Address address = new Address();
+            address.setId(UUID.randomUUID().toString());
+            address.setContact(contact);
+            address.setCity("Jakarta");
+            address.setCountry("Indonesia");
+            addressRepository.save(address);
+        }
+
+//        % DAN _ DICARI SEBAGAI HURUF BIASA, BUKAN WILDCARD. FILTER CITY SUPAYA PENCARIAN KE DATABASE, BUKAN KE INDEX LUCENE
+//        PREFIX : "a_b" DINORMALISASI MENJADI "a b", "%" SAJA MENJADI KOSONG DAN DIANGGAP TANPA FILTER NAMA
+        String[][] searches = {{"100%", "contains", "1"}, {"a_b", "contains", "1"}, {"a_b", "prefix", "1"}, {"%", "prefix", "4"}};
+        for (String[] search : searches) {
+            mockMvc.perform(
+                    get("/api/contacts")
+                            .queryParam("name", search[0])
+                            .queryParam("match", search[1])
+                            .queryParam("city", "Jakarta")
+                            .header("X-API-TOKEN", "test")
+                            .accept(MediaType.APPLICATION_JSON)
+            ).andExpectAll(
+                    status().isOk()
+            ).andDo(result -> {
+                WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+                });
+                assertNull(response.getError());
+                assertEquals(Integer.parseInt(search[2]), response.getData().size(), search[0] + " " + search[1]);
+            });
+        }
+    }
+
+    @Test
+    void searchPhoneSuffix() throws Exception {
+        for (String phone : new String[]{"+62 812-3456-7890", "0812 9999 7890", "0812-1111-2222"}) {
+            CreateContactRequest request = new CreateContactRequest();
+            request.setFirstName("Ibnu");
+            request.setPhone(phone);
+
+            mockMvc.perform(
+                    post("/api/contacts")
+                            .header("X-API-TOKEN", "test")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request))
+            ).andExpectAll(
+                    status().isOk()
+            );
+        }
+
+        Contact saved = contactRespository.findAll().stream()
+                .filter(contact -> contact.getPhone().startsWith("+"))
+                .findFirst().orElseThrow();
+        assertEquals("+6281234567890", saved.getPhone());
+        assertEquals("0987654321826", saved.getPhoneReversed());
+
+//        DIGIT TERAKHIR, FORMAT PENCARIAN TIDAK BERPENGARUH
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("phone", "78-90")
+                        .queryParam("match", "prefix")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(2, response.getData().size());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("phone", "0812")
+                        .queryParam("match", "prefix")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(0, response.getData().size());
+        });
+
+//        MODE contains JUGA MENGABAIKAN FORMAT
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("phone", "1111 2222")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(1, response.getData().size());
+            assertEquals("081211112222", response.getData().get(0).getPhone());
+        });
+
+//        TANPA DIGIT DITOLAK, BUKAN MENGEMBALIKAN SEMUA CONTACT
+        for (String match : new String[]{"contains", "prefix"}) {
+            mockMvc.perform(
+                    get("/api/contacts")
+                            .queryParam("phone", "abc")
+                            .queryParam("match", match)
+                            .header("X-API-TOKEN", "test")
+                            .accept(MediaType.APPLICATION_JSON)
+            ).andExpectAll(
+                    status().isBadRequest()
+            ).andDo(result -> {
+                WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+                });
+                assertEquals("Phone must contain digits", response.getError());
+            });
+        }
+    }
+
+    @Test
+    void suggest() throws Exception {
+        List<String> ids = new ArrayList<>();
+        String[][] names = {{"Ibnu", "Rabbani"}, {"Rabiah", "Adawiyah"}, {"Budi", "Santoso"}};
+        for (String[] name : names) {
+            CreateContactRequest request = new CreateContactRequest();
+            request.setFirstName(name[0]);
+            request.setLastName(name[1]);
+
+            String content = mockMvc.perform(
+                    post("/api/contacts")
+                            .header("X-API-TOKEN", "test")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request))
+            ).andExpectAll(
+                    status().isOk()
+            ).andReturn().getResponse().getContentAsString();
+            WebResponse<ContactResponse> response = objectMapper.readValue(content, new TypeReference<>() {
+            });
+            ids.add(response.getData().getId());
+        }
+
+//        AWAL FIRST NAME ATAU LAST NAME
+        mockMvc.perform(
+                get("/api/contacts/suggest")
+                        .queryParam("q", "RAB")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactSuggestionResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(2, response.getData().size());
+            assertEquals("Ibnu", response.getData().get(0).getFirstName());
+            assertEquals("Rabiah", response.getData().get(1).getFirstName());
+        });
+
+//        PERUBAHAN CONTACT LANGSUNG TERLIHAT
+        mockMvc.perform(
+                delete("/api/contacts/" + ids.get(1))
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        UpdateContactRequest request = new UpdateContactRequest();
+        request.setFirstName("Budi");
+        request.setLastName("Rabbani");
+        mockMvc.perform(
+                put("/api/contacts/" + ids.get(2))
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        mockMvc.perform(
+                get("/api/contacts/suggest")
+                        .queryParam("q", "rab")
+                        .queryParam("limit", "1")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactSuggestionResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(1, response.getData().size());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts/suggest")
+                        .queryParam("q", "rab")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactSuggestionResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(2, response.getData().size());
+            assertEquals(Set.of("Ibnu", "Budi"), Set.of(response.getData().get(0).getFirstName(), response.getData().get(1).getFirstName()));
+        });
+    }
+
+    @Test
+    void searchByAddress() throws Exception {
+        User user = userRepository.findById("ibnu").orElseThrow();
+
+        String[][] contacts = {{"Ibnu", "Jakarta", "Bandung"}, {"Budi", "Jakarta", null}, {"Joko", "Surabaya", null}};
+        for (String[] data : contacts) {
+            Contact contact = new Contact();
+            contact.setUser(user);
+            contact.setId(UUID.randomUUID().toString());
+            contact.setFirstName(data[0]);
+            contactRespository.save(contact);
+
+            for (int i = 1; i < data.length && data[i] != null; i++) {
+                Address address = new Address();
+                address.setId(UUID.randomUUID().toString());
+                address.setContact(contact);
+                address.setCity(data[i]);
+                address.setCountry("Indonesia");
+                addressRepository.save(address);
+            }
+        }
+
+        Address second = new Address();
+        second.setId(UUID.randomUUID().toString());
+        second.setContact(contactRespository.findAll().stream().filter(contact -> contact.getFirstName().equals("Ibnu")).findFirst().orElseThrow());
+        second.setCity("Jakarta");
+        second.setCountry("Indonesia");
+        addressRepository.save(second);
+
+//        IBNU PUNYA DUA ADDRESS DI JAKARTA, TETAP MUNCUL SEKALI
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("city", "Jakarta")
+                        .queryParam("country", "Indonesia")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(2, response.getData().size());
+            assertEquals(1, response.getPaging().getTotalPages());
+            assertEquals(Set.of("Ibnu", "Budi"), Set.of(response.getData().get(0).getFirstName(), response.getData().get(1).getFirstName()));
+        });
+
+//        DIGABUNG DENGAN FILTER CONTACT
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("city", "Jakarta")
+                        .queryParam("name", "Bud")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(1, response.getData().size());
+            assertEquals("Budi", response.getData().get(0).getFirstName());
+        });
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("country", "Malaysia")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(0, response.getData().size());
+            assertEquals(0, response.getPaging().getTotalPages());
+        });
+    }
+}
@@ -0,0 +1,205 @@
+package programmer.restful.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import programmer.restful.entity.Contact;
+import programmer.restful.entity.Session;
+import programmer.restful.entity.User;
+import programmer.restful.model.ContactResponse;
+import programmer.restful.model.WebResponse;
+import programmer.restful.repository.AddressRepository;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.ContactTagRepository;
+import programmer.restful.repository.SessionRepository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.security.BCrypt;
+import programmer.restful.service.ContactService;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// COUNT PARALEL PADA PENCARIAN : TIMEOUT, PERMIT HABIS, DAN ?total=estimate
+// INDEX LUCENE DIMATIKAN SUPAYA PENCARIAN SELALU LEWAT QUERY DATABASE
+@SpringBootTest(properties = {
+        "app.contact-index.enabled=false",
+        "app.contact-search.count-timeout-ms=200",
+        "app.contact-search.count-concurrency=1",
+        "app.contact-search.estimate-cap=2",
+        "app.session-purge.enabled=false",
+        "app.contact-backfill.enabled=false"
+})
+@AutoConfigureMockMvc
+class ContactSearchCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @SpyBean
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ContactTagRepository contactTagRepository;
+
+    @Autowired
+    private ContactService contactService;
+
+    @BeforeEach
+    void setUp() {
+        contactTagRepository.deleteAll();
+        addressRepository.deleteAll();
+        contactRespository.deleteAll();
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        user.setName("Test");
+        userRepository.save(user);
+
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(user);
+        session.setExpiredAt(System.currentTimeMillis() + 10000000000000L);
+        sessionRepository.save(session);
+
+        for (int i = 0; i < 3; i++) {
+            Contact contact = new Contact();
+            contact.setUser(user);
+            contact.setId("test-" + i);
+            contact.setFirstName("Ibnu");
+            contactRespository.save(contact);
+        }
+    }
+
+    @AfterEach
+    void waitForPermit() throws InterruptedException {
+        // COUNT YANG MASIH JALAN DI BACKGROUND HARUS SELESAI SEBELUM TEST BERIKUTNYA
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(contactService, "countPermits");
+        assertTrue(permits.tryAcquire(5, TimeUnit.SECONDS));
+        permits.release();
+    }
+
+    private WebResponse<List<ContactResponse>> search(String total) throws Exception {
+        return objectMapper.readValue(mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "Ibnu")
+                        .queryParam("size", "1")
+                        .queryParam("total", total)
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString(), new TypeReference<>() {
+        });
+    }
+
+    @Test
+    void countTimeoutReturnsLowerBound() throws Exception {
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        doAnswer(invocation -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException exception) {
+                interrupted.set(true);
+            } finally {
+                finished.countDown();
+            }
+            return 3L;
+        }).when(contactRespository).countWithTimeout(any(), anyInt());
+
+        WebResponse<List<ContactResponse>> response = search("true");
+        assertEquals(1, response.getData().size());
+        // HALAMAN PERTAMA DAN ADA HALAMAN BERIKUTNYA : MINIMAL 2 CONTACT
+        assertEquals(2, response.getPaging().getTotalPages());
+        assertTrue(response.getPaging().getTotalEstimated());
+
+        // COUNT YANG TERLAMBAT TIDAK DI-INTERRUPT, DIBIARKAN SELESAI ATAU DIHENTIKAN QUERY TIMEOUT
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+    }
+
+    @Test
+    void countFailureReturnsLowerBound() throws Exception {
+        doThrow(new QueryTimeoutException("Query execution was interrupted"))
+                .when(contactRespository).countWithTimeout(any(), anyInt());
+
+        // COUNT GAGAL, HALAMAN TETAP DIKIRIM DENGAN TOTAL MINIMAL
+        WebResponse<List<ContactResponse>> response = search("true");
+        assertEquals(1, response.getData().size());
+        assertEquals(2, response.getPaging().getTotalPages());
+        assertTrue(response.getPaging().getTotalEstimated());
+    }
+
+    @Test
+    void countSkippedWhenPermitsInUse() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            // MENGABAIKAN INTERRUPT SUPAYA PERMIT TETAP DIPAKAI SELAMA REQUEST KEDUA
+            boolean released = false;
+            while (!released) {
+                try {
+                    released = release.await(10, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ignored) {
+                }
+            }
+            return invocation.callRealMethod();
+        }).when(contactRespository).countWithTimeout(any(), anyInt());
+
+        assertTrue(search("true").getPaging().getTotalEstimated());
+
+        // COUNT PERTAMA MASIH MEMEGANG SATU-SATUNYA PERMIT, REQUEST KEDUA TIDAK MENJALANKAN COUNT
+        WebResponse<List<ContactResponse>> response = search("true");
+        assertEquals(2, response.getPaging().getTotalPages());
+        assertTrue(response.getPaging().getTotalEstimated());
+        verify(contactRespository, times(1)).countWithTimeout(any(), anyInt());
+
+        release.countDown();
+    }
+
+    @Test
+    void estimateCountedInDatabaseUpToCap() throws Exception {
+        WebResponse<List<ContactResponse>> response = search("estimate");
+        // 3 CONTACT, DIHITUNG SAMPAI estimate-cap = 2
+        assertEquals(2, response.getPaging().getTotalPages());
+        assertTrue(response.getPaging().getTotalEstimated());
+
+        response = search("true");
+        assertEquals(3, response.getPaging().getTotalPages());
+        assertFalse(response.getPaging().getTotalEstimated());
+    }
+}
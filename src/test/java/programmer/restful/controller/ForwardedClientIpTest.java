@@ -0,0 +1,67 @@
+package programmer.restful.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import programmer.restful.model.LoginUserRequest;
+import programmer.restful.repository.SessionRepository;
+import programmer.restful.repository.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// X-Forwarded-For DIBACA OLEH TOMCAT (forward-headers-strategy=native), JADI HARUS LEWAT SERVER SUNGGUHAN BUKAN MockMvc
+// TEST MENGIRIM DARI 127.0.0.1 YANG TERMASUK internal-proxies
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.login-rate-limit.ip.capacity=2",
+        "app.contact-index.enabled=false",
+        "app.session-purge.enabled=false",
+        "app.contact-backfill.enabled=false"
+})
+class ForwardedClientIpTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+        // HttpURLConnection BAWAAN GAGAL MEMBACA RESPONSE 401 DARI POST
+        restTemplate.getRestTemplate().setRequestFactory(new JdkClientHttpRequestFactory());
+    }
+
+    private HttpStatus login(String username, String forwardedFor) {
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername(username);
+        request.setPassword("salah");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", forwardedFor);
+        return HttpStatus.valueOf(restTemplate.postForEntity("/api/auth/login", new HttpEntity<>(request, headers), String.class)
+                .getStatusCode().value());
+    }
+
+    @Test
+    void ipBucketPerForwardedClient() {
+        assertEquals(HttpStatus.UNAUTHORIZED, login("spray0", "203.0.113.1"));
+        assertEquals(HttpStatus.UNAUTHORIZED, login("spray1", "203.0.113.1"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, login("spray2", "203.0.113.1"));
+
+        // CLIENT LAIN DI BELAKANG PROXY YANG SAMA PUNYA BUCKET SENDIRI
+        assertEquals(HttpStatus.UNAUTHORIZED, login("spray3", "203.0.113.2"));
+    }
+}
@@ -0,0 +1,151 @@
+package programmer.restful.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import programmer.restful.entity.User;
+import programmer.restful.model.LoginUserRequest;
+import programmer.restful.model.WebResponse;
+import programmer.restful.repository.SessionRepository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.security.BCrypt;
+import programmer.restful.security.PasswordHashExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// SATU THREAD DAN ANTRIAN SATU, CUKUP DUA HASH YANG DITAHAN SUPAYA POOL PENUH
+@SpringBootTest(properties = {
+        "app.password-hash.threads=1",
+        "app.password-hash.queue-capacity=1",
+        "app.password-hash.timeout-ms=1000",
+        "app.contact-index.enabled=false",
+        "app.session-purge.enabled=false",
+        "app.contact-backfill.enabled=false"
+})
+@AutoConfigureMockMvc
+class PasswordHashBusyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private PasswordHashExecutor passwordHashExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        user.setName("Test");
+        userRepository.save(user);
+    }
+
+    @Test
+    void loginServiceUnavailableWhenHashPoolFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            Thread.ofVirtual().start(() -> passwordHashExecutor.execute("test", () -> release.await(10, TimeUnit.SECONDS)));
+        }
+        // SATU HASH JALAN, SATU LAGI MENUNGGU DI ANTRIAN
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("password.hash.queue.size").gauge().value() < 1) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername("test");
+        request.setPassword("rahasia");
+
+        try {
+            mockMvc.perform(
+                    post("/api/auth/login")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request))
+            ).andExpectAll(
+                    status().isServiceUnavailable()
+            ).andDo(result -> {
+                WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+                });
+                assertNull(response.getData());
+                assertEquals("Server is busy, please try again later", response.getError());
+            });
+        } finally {
+            release.countDown();
+        }
+
+        assertEquals(1.0, meterRegistry.get("password.hash.rejected").counter().count());
+    }
+
+    @Test
+    void loginServiceUnavailableWhenHashQueuedTooLong() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // THREAD POOL DITAHAN (INTERRUPT DIABAIKAN), LOGIN HANYA BISA MENUNGGU DI ANTRIAN
+        Thread.ofVirtual().start(() -> passwordHashExecutor.execute("test", () -> {
+            started.countDown();
+            while (true) {
+                try {
+                    if (release.await(10, TimeUnit.SECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername("test");
+        request.setPassword("rahasia");
+
+        try {
+            mockMvc.perform(
+                    post("/api/auth/login")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request))
+            ).andExpectAll(
+                    status().isServiceUnavailable()
+            ).andDo(result -> {
+                WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+                });
+                assertNull(response.getData());
+                assertEquals("Server is busy, please try again later", response.getError());
+            });
+        } finally {
+            release.countDown();
+        }
+
+        assertTrue(meterRegistry.get("password.hash.timeout").counter().count() >= 1.0);
+        assertEquals(0, sessionRepository.count());
+    }
+}
@@ -0,0 +1,295 @@
+package programmer.restful.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import programmer.restful.entity.Contact;
+import programmer.restful.entity.Session;
+import programmer.restful.entity.User;
+import programmer.restful.model.ContactResponse;
+import programmer.restful.model.WebResponse;
+import programmer.restful.repository.AddressRepository;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.ContactTagRepository;
+import programmer.restful.repository.SessionRepository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.security.BCrypt;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TagControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ContactTagRepository contactTagRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        contactTagRepository.deleteAll();
+        addressRepository.deleteAll();
+        contactRespository.deleteAll();
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
+        user.setName("Test");
+        userRepository.save(user);
+
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(user);
+        session.setExpiredAt(System.currentTimeMillis() + 10000000000000L);
+        sessionRepository.save(session);
+
+        createContact("test", "Ibnu");
+    }
+
+    private void createContact(String id, String firstName) {
+        Contact contact = new Contact();
+        contact.setUser(user);
+        contact.setId(id);
+        contact.setFirstName(firstName);
+        contact.setLastName("Rabbani");
+        contactRespository.save(contact);
+    }
+
+    private List<String> addTag(String idContact, String tag) throws Exception {
+        return objectMapper.<WebResponse<List<String>>>readValue(mockMvc.perform(
+                put("/api/contacts/" + idContact + "/tags/" + tag)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString(), new TypeReference<>() {
+        }).getData();
+    }
+
+    private WebResponse<List<ContactResponse>> search(String tagMode, String cursor, String... tags) throws Exception {
+        var request = get("/api/contacts")
+                .queryParam("tag", tags)
+                .queryParam("size", "2")
+                .header("X-API-TOKEN", "test")
+                .accept(MediaType.APPLICATION_JSON);
+        if (tagMode != null) {
+            request.queryParam("tagMode", tagMode);
+        }
+        if (cursor != null) {
+            request.queryParam("cursor", cursor);
+        }
+        return objectMapper.readValue(mockMvc.perform(request).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString(), new TypeReference<>() {
+        });
+    }
+
+    private static Set<String> ids(WebResponse<List<ContactResponse>> response) {
+        return response.getData().stream().map(ContactResponse::getId).collect(Collectors.toSet());
+    }
+
+    @Test
+    void addTagSuccess() throws Exception {
+        assertEquals(List.of("vip"), addTag("test", " VIP "));
+        assertEquals(List.of("family", "vip"), addTag("test", "family"));
+
+//        TAG YANG SUDAH ADA TIDAK DOBEL
+        assertEquals(List.of("family", "vip"), addTag("test", "vip"));
+    }
+
+    @Test
+    void addTagBadRequest() throws Exception {
+        mockMvc.perform(
+                put("/api/contacts/test/tags/bukan tag!")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isBadRequest()
+        ).andDo(result -> {
+            WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNotNull(response.getError());
+        });
+    }
+
+    @Test
+    void addTagContactNotFound() throws Exception {
+        mockMvc.perform(
+                put("/api/contacts/salah/tags/vip")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isNotFound()
+        ).andDo(result -> {
+            WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNotNull(response.getError());
+        });
+    }
+
+    @Test
+    void listTags() throws Exception {
+        addTag("test", "vip");
+        addTag("test", "family");
+
+        mockMvc.perform(
+                get("/api/contacts/test/tags")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<String>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(List.of("family", "vip"), response.getData());
+        });
+    }
+
+    @Test
+    void removeTag() throws Exception {
+        addTag("test", "vip");
+
+        mockMvc.perform(
+                delete("/api/contacts/test/tags/vip")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals("OK", response.getData());
+        });
+
+        mockMvc.perform(
+                delete("/api/contacts/test/tags/vip")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isNotFound()
+        );
+
+        assertTrue(contactTagRepository.findTagsByContactId("test").isEmpty());
+    }
+
+    @Test
+    void searchByTag() throws Exception {
+        createContact("a", "Budi");
+        createContact("b", "Joko");
+        createContact("c", "Siti");
+        addTag("test", "vip");
+        addTag("a", "vip");
+        addTag("a", "family");
+        addTag("b", "vip");
+        addTag("b", "family");
+        addTag("c", "family");
+
+//        ALL : PUNYA SEMUA TAG
+        WebResponse<List<ContactResponse>> response = search(null, null, "vip", "family");
+        assertNull(response.getError());
+        assertEquals(Set.of("a", "b"), ids(response));
+        assertEquals(1, response.getPaging().getTotalPages());
+
+//        ANY : PUNYA SALAH SATU TAG, DIURUTKAN BERDASARKAN id DAN BISA DILANJUTKAN DENGAN CURSOR
+        response = search("any", null, "vip", "family");
+        assertEquals(List.of("a", "b"), response.getData().stream().map(ContactResponse::getId).toList());
+        assertEquals(2, response.getPaging().getTotalPages());
+        assertNotNull(response.getPaging().getNextCursor());
+
+        response = search("any", response.getPaging().getNextCursor(), "vip", "family");
+        assertEquals(List.of("c", "test"), response.getData().stream().map(ContactResponse::getId).toList());
+        assertNull(response.getPaging().getNextCursor());
+
+//        PERUBAHAN TAG DAN CONTACT LANGSUNG TERLIHAT
+        mockMvc.perform(
+                delete("/api/contacts/a/tags/vip")
+                        .header("X-API-TOKEN", "test")
+        ).andExpect(status().isOk());
+        mockMvc.perform(
+                delete("/api/contacts/b")
+                        .header("X-API-TOKEN", "test")
+        ).andExpect(status().isOk());
+        assertEquals(Set.of("test"), ids(search(null, null, "vip")));
+        assertEquals(Set.of("a", "c"), ids(search(null, null, "family")));
+
+        createContact("d", "Dewi");
+        addTag("d", "vip");
+        assertEquals(Set.of("d", "test"), ids(search(null, null, "VIP")));
+
+//        TAG YANG TIDAK DIPAKAI SIAPAPUN
+        assertTrue(search("any", null, "tidak-ada").getData().isEmpty());
+    }
+
+    @Test
+    void searchByTagAndName() throws Exception {
+        createContact("a", "Budi");
+        createContact("b", "Joko");
+        addTag("test", "vip");
+        addTag("a", "vip");
+        addTag("b", "vip");
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("tag", "vip")
+                        .queryParam("name", "Bud")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            assertNull(response.getError());
+            assertEquals(1, response.getData().size());
+            assertEquals("a", response.getData().get(0).getId());
+        });
+    }
+
+    @Test
+    void searchByTagBadMode() throws Exception {
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("tag", "vip")
+                        .queryParam("tagMode", "semua")
+                        .header("X-API-TOKEN", "test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+    }
+}
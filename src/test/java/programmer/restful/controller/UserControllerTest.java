@@ -9,20 +9,32 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import programmer.restful.entity.DeniedToken;
+import programmer.restful.entity.Session;
 import programmer.restful.entity.User;
+import programmer.restful.model.LoginUserRequest;
 import programmer.restful.model.RegisterUserRequest;
+import programmer.restful.model.TokenResponse;
 import programmer.restful.model.UpdateUserRequest;
+import programmer.restful.model.UserPrincipal;
 import programmer.restful.model.UserResponse;
 import programmer.restful.model.WebResponse;
+import programmer.restful.repository.DeniedTokenRepository;
+import programmer.restful.repository.SessionRepository;
 import programmer.restful.repository.UserRepository;
 import programmer.restful.security.BCrypt;
+import programmer.restful.security.RejectedTokenCache;
+import programmer.restful.security.TokenBloomFilter;
+import programmer.restful.security.TokenCache;
+import programmer.restful.security.TokenSigner;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
-@SpringBootTest
+@SpringBootTest(properties = {"app.token.secret=rahasia-test-yang-panjangnya-minimal-32-byte", "app.contact-index.enabled=false"})
 @AutoConfigureMockMvc
 class UserControllerTest {
 
@@ -32,11 +44,34 @@ class UserControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private DeniedTokenRepository deniedTokenRepository;
+
+    @Autowired
+    private TokenSigner tokenSigner;
+
+    @Autowired
+    private TokenBloomFilter tokenBloomFilter;
+
+    @Autowired
+    private RejectedTokenCache rejectedTokenCache;
+
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() {
+        deniedTokenRepository.deleteAll();
+        sessionRepository.deleteAll();
         userRepository.deleteAll();
     }
 
@@ -159,10 +194,14 @@ class UserControllerTest {
         user.setName("Test");
         user.setUsername("test");
         user.setPassword(BCrypt.hashpw("rahasia",BCrypt.gensalt()));
-        user.setToken("test");
-        user.setTokenExpiredAt(System.currentTimeMillis() - 10000000L);
         userRepository.save(user);
 
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(user);
+        session.setExpiredAt(System.currentTimeMillis() - 10000000L);
+        sessionRepository.save(session);
+
         mockMvc.perform(
                 get("/api/users/current")
                         .accept(MediaType.APPLICATION_JSON)
@@ -180,12 +219,16 @@ class UserControllerTest {
     void getUserSuccess() throws Exception {
         User user = new User();
         user.setUsername("test");
-        user.setToken("test");
         user.setPassword(BCrypt.hashpw("rahasia",BCrypt.gensalt()));
         user.setName("Test");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 10000000000000L);
         userRepository.save(user);
 
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(user);
+        session.setExpiredAt(System.currentTimeMillis() + 10000000000000L);
+        sessionRepository.save(session);
+
         mockMvc.perform(
                 get("/api/users/current")
                         .accept(MediaType.APPLICATION_JSON)
@@ -199,6 +242,14 @@ class UserControllerTest {
             Assertions.assertEquals("test",response.getData().getUsername());
             Assertions.assertEquals("Test",response.getData().getName());
         });
+
+        // PRINCIPAL DI-SELECT LANGSUNG DARI SESSION DAN USER, TANPA ENTITY USER
+        UserPrincipal principal = tokenCache.get("test");
+        Assertions.assertNotNull(principal);
+        Assertions.assertEquals("test", principal.getUsername());
+        Assertions.assertEquals("Test", principal.getName());
+        Assertions.assertEquals(session.getExpiredAt(), principal.getTokenExpiredAt());
+        Assertions.assertEquals("test", principal.getToken());
     }
 
     @Test
@@ -223,12 +274,16 @@ class UserControllerTest {
     void updateUserSuccess() throws Exception {
         User user = new User();
         user.setUsername("test");
-        user.setToken("test");
         user.setPassword(BCrypt.hashpw("rahasia",BCrypt.gensalt()));
         user.setName("Test");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 10000000000000L);
         userRepository.save(user);
 
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(user);
+        session.setExpiredAt(System.currentTimeMillis() + 10000000000000L);
+        sessionRepository.save(session);
+
         UpdateUserRequest request = new UpdateUserRequest();
         request.setName("Ibnu");
         request.setPassword("18nu");
@@ -253,6 +308,50 @@ class UserControllerTest {
             Assertions.assertNotNull(userDb);
             Assertions.assertTrue(BCrypt.checkpw("18nu", userDb.getPassword()));
         });
+
+        // PRINCIPAL DI TokenCache MASIH BERISI NAMA LAMA, HARUS DIBUANG SETELAH UPDATE
+        mockMvc.perform(
+                get("/api/users/current")
+                        .header("X-API-TOKEN","test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<UserResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            Assertions.assertEquals("Ibnu",response.getData().getName());
+        });
+    }
+
+    @Test
+    void getUserFromTokenCache() throws Exception {
+        createUser();
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(userRepository.findById("test").orElseThrow());
+        session.setExpiredAt(System.currentTimeMillis() + 10000000L);
+        sessionRepository.save(session);
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .header("X-API-TOKEN","test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        );
+        Assertions.assertNotNull(tokenCache.get("test"));
+
+        // DIHAPUS TANPA LEWAT JPA SUPAYA SessionListener TIDAK MEMBUANG CACHE, REQUEST BERIKUTNYA DIJAWAB DARI CACHE
+        jdbcTemplate.update("delete from sessions where token = ?", "test");
+        mockMvc.perform(
+                get("/api/users/current")
+                        .header("X-API-TOKEN","test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        tokenCache.invalidate("test");
     }
 
     @Test
@@ -273,12 +372,16 @@ class UserControllerTest {
     void logoutSuccess() throws Exception {
         User user = new User();
         user.setUsername("test");
-        user.setToken("test");
         user.setPassword(BCrypt.hashpw("rahasia",BCrypt.gensalt()));
         user.setName("Test");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 10000000L);
         userRepository.save(user);
 
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(user);
+        session.setExpiredAt(System.currentTimeMillis() + 10000000L);
+        sessionRepository.save(session);
+
         mockMvc.perform(
                 delete("/api/logout")
                         .header("X-API-TOKEN","test")
@@ -291,11 +394,225 @@ class UserControllerTest {
             Assertions.assertNull(response.getError());
             Assertions.assertEquals("OK",response.getData());
 
-            User userDb = userRepository.findById("test").orElse(null);
-            Assertions.assertNotNull(userDb);
-            Assertions.assertNull(userDb.getToken());
-            Assertions.assertNull(userDb.getTokenExpiredAt());
+            Assertions.assertFalse(sessionRepository.existsById("test"));
+            Assertions.assertTrue(userRepository.existsById("test"));
+
+        });
+
+        // TOKEN SUDAH DIBUANG DARI CACHE SETELAH COMMIT, TIDAK BISA DIPAKAI LAGI
+        Assertions.assertNull(tokenCache.get("test"));
+        mockMvc.perform(
+                get("/api/users/current")
+                        .header("X-API-TOKEN","test")
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+    }
+
+    @Test
+    void getUserSignedTokenSuccess() throws Exception {
+        createUser();
+        String token = tokenSigner.sign("test", System.currentTimeMillis() + 10000000L);
 
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<UserResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            Assertions.assertNull(response.getError());
+            Assertions.assertEquals("test", response.getData().getUsername());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUserUnautorizedSignedTokenForged() throws Exception {
+        createUser();
+        String token = tokenSigner.sign("lain", System.currentTimeMillis() + 10000000L);
+        // USERNAME DIGANTI TANPA MENGUBAH SIGNATURE
+        String forged = token.replaceFirst("^[^.]+", "dGVzdA");
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", forged)
+        ).andExpectAll(
+                status().isUnauthorized()
+        ).andDo(result -> {
+            WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            Assertions.assertNotNull(response.getError());
+        });
+    }
+
+    @Test
+    void getUserUnautorizedSignedTokenExpired() throws Exception {
+        createUser();
+        String token = tokenSigner.sign("test", System.currentTimeMillis() - 1000L);
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+    }
+
+    @Test
+    void logoutSignedTokenRevoked() throws Exception {
+        createUser();
+        String token = tokenSigner.sign("test", System.currentTimeMillis() + 10000000L);
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        mockMvc.perform(
+                delete("/api/logout")
+                        .header("X-API-TOKEN", token)
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpectAll(
+                status().isOk()
+        );
+        Assertions.assertEquals(1, deniedTokenRepository.count());
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+    }
+
+    @Test
+    void getUserUnautorizedSignedTokenRevokedOnOtherNode() throws Exception {
+        createUser();
+        String token = tokenSigner.sign("test", System.currentTimeMillis() + 10000000L);
+
+        // LOGOUT DI NODE LAIN HANYA MENULIS BARIS denied_tokens
+        deniedTokenRepository.save(new DeniedToken(token.substring(token.lastIndexOf('.') + 1), System.currentTimeMillis() + 10000000L));
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+    }
+
+    @Test
+    void getUserTokenFromOtherNodeNotInBloomFilter() throws Exception {
+        createUser();
+        tokenBloomFilter.rebuild();
+
+        // SESSION DIBUAT NODE LAIN, TIDAK LEWAT SessionListener DI NODE INI
+        jdbcTemplate.update("insert into sessions (token, username, expired_at) values (?, ?, ?)",
+                "other-node", "test", System.currentTimeMillis() + 10000000L);
+        Assertions.assertFalse(tokenBloomFilter.mightContain("other-node"));
+
+        // BELUM MASUK FILTER NODE INI : DITOLAK TANPA QUERY DAN DICATAT DI RejectedTokenCache
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "other-node")
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+        Assertions.assertTrue(rejectedTokenCache.contains("other-node"));
+
+        // catchUp() HANYA MEMBACA SESSION BARU, MEMASUKKANNYA KE FILTER DAN MEMBUANGNYA DARI RejectedTokenCache
+        tokenBloomFilter.catchUp();
+        Assertions.assertTrue(tokenBloomFilter.mightContain("other-node"));
+        Assertions.assertFalse(rejectedTokenCache.contains("other-node"));
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "other-node")
+        ).andExpectAll(
+                status().isOk()
+        );
+    }
+
+    @Test
+    void getUserUnautorizedRejectedTokenCached() throws Exception {
+        createUser();
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "ditolak")
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+        Assertions.assertTrue(rejectedTokenCache.contains("ditolak"));
+
+        // SELAMA MASIH DI RejectedTokenCache TOKEN DITOLAK TANPA QUERY, WALAUPUN SEKARANG ADA DI DATABASE
+        jdbcTemplate.update("insert into sessions (token, username, expired_at) values (?, ?, ?)",
+                "ditolak", "test", System.currentTimeMillis() + 10000000L);
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "ditolak")
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+
+        tokenBloomFilter.catchUp();
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "ditolak")
+        ).andExpectAll(
+                status().isOk()
+        );
+    }
+
+    @Test
+    void getUserRightAfterLogin() throws Exception {
+        createUser();
+        tokenBloomFilter.rebuild();
+
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername("test");
+        request.setPassword("rahasia");
+
+        String token = mockMvc.perform(
+                post("/api/auth/login")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn().getResponse().getContentAsString();
+        WebResponse<TokenResponse> response = objectMapper.readValue(token, new TypeReference<>() {
+        });
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", response.getData().getToken())
+        ).andExpectAll(
+                status().isOk()
+        );
+    }
+
+    private void createUser() {
+        User user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia",BCrypt.gensalt(4)));
+        user.setName("Test");
+        userRepository.save(user);
+    }
+}
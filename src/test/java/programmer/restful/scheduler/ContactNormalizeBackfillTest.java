@@ -0,0 +1,97 @@
+package programmer.restful.scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import programmer.restful.entity.User;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.SchedulerLeaseRepository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.search.ContactIndex;
+import programmer.restful.security.BCrypt;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// INDEX DI FOLDER SENDIRI SUPAYA TIDAK BEREBUT LOCK DENGAN CONTEXT TEST LAIN
+@SpringBootTest(properties = {
+        "app.contact-index.path=${java.io.tmpdir}/spring-restful-api/contact-index-backfill-test",
+        "app.contact-backfill.enabled=false",
+        "app.contact-backfill.chunk-size=2",
+        "app.session-purge.enabled=false"
+})
+class ContactNormalizeBackfillTest {
+
+    @Autowired
+    private ContactNormalizeBackfill contactNormalizeBackfill;
+
+    @Autowired
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @Autowired
+    private ContactIndex contactIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        schedulerLeaseRepository.deleteAll();
+        contactRespository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        user.setName("Test");
+        userRepository.save(user);
+
+        // CONTACT LAMA, DITULIS TANPA ContactListener SEHINGGA KOLOM *_normalized KOSONG
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.update("insert into contacts (id, username, first_name, last_name, phone, version) values (?, ?, ?, ?, ?, ?)",
+                    "contact-" + i, "test", "José", "Müller", "0812-345-" + i, 3);
+        }
+    }
+
+    @Test
+    void backfillKeepsVersion() throws Exception {
+        assertEquals(5, contactNormalizeBackfill.backfill());
+
+        Map<String, Object> contact = jdbcTemplate.queryForMap("select * from contacts where id = ?", "contact-0");
+        assertEquals("jose muller", contact.get("full_name_normalized"));
+        assertEquals("muller", contact.get("last_name_normalized"));
+        assertEquals("08123450", contact.get("phone"));
+        assertEquals("05432180", contact.get("phone_reversed"));
+        // CLIENT YANG MASIH MEMEGANG version 3 TIDAK MENDAPAT 412
+        assertEquals(3L, ((Number) contact.get("version")).longValue());
+
+        // PHONE YANG SUDAH DIRAPIKAN IKUT MASUK INDEX
+        assertEquals(5, contactIndex.search("test", null, null, "0812345", null, 0, 10, Integer.MAX_VALUE).total());
+    }
+
+    @Test
+    void completionDecidedByDatabase() {
+        ReflectionTestUtils.setField(contactNormalizeBackfill, "enabled", true);
+        try {
+            contactNormalizeBackfill.run();
+            assertEquals(0, contactNormalizeBackfill.backfill());
+
+            // CONTACT YANG DITULIS NODE LAIN DENGAN KODE LAMA SETELAH BACKFILL SELESAI TETAP DIISI PADA JALAN BERIKUTNYA
+            jdbcTemplate.update("insert into contacts (id, username, first_name, version) values (?, ?, ?, ?)", "contact-5", "test", "Budi", 0);
+            contactNormalizeBackfill.run();
+            assertEquals("budi", jdbcTemplate.queryForObject("select full_name_normalized from contacts where id = ?", String.class, "contact-5"));
+        } finally {
+            ReflectionTestUtils.setField(contactNormalizeBackfill, "enabled", false);
+        }
+    }
+}
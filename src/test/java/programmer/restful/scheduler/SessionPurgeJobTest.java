@@ -0,0 +1,100 @@
+package programmer.restful.scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import programmer.restful.entity.DeniedToken;
+import programmer.restful.entity.Session;
+import programmer.restful.entity.User;
+import programmer.restful.repository.DeniedTokenRepository;
+import programmer.restful.repository.SchedulerLeaseRepository;
+import programmer.restful.repository.SessionRepository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.security.BCrypt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"app.session-purge.chunk-size=2", "app.session-purge.enabled=false", "app.contact-index.enabled=false"})
+class SessionPurgeJobTest {
+
+    @Autowired
+    private SessionPurgeJob sessionPurgeJob;
+
+    @Autowired
+    private SchedulerLock schedulerLock;
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeniedTokenRepository deniedTokenRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        schedulerLeaseRepository.deleteAll();
+        deniedTokenRepository.deleteAll();
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
+        user.setName("Test");
+        userRepository.save(user);
+    }
+
+    @Test
+    void purgeExpiredSessionsInChunks() {
+        for (int i = 0; i < 5; i++) {
+            createSession("expired-" + i, System.currentTimeMillis() - 1000);
+        }
+        createSession("active", System.currentTimeMillis() + 1000000);
+
+        assertEquals(5, sessionPurgeJob.purge());
+        assertEquals(1, sessionRepository.count());
+        assertTrue(sessionRepository.existsById("active"));
+    }
+
+    @Test
+    void purgeExpiredDeniedTokens() {
+        for (int i = 0; i < 3; i++) {
+            deniedTokenRepository.save(new DeniedToken("expired-" + i, System.currentTimeMillis() - 1000));
+        }
+        deniedTokenRepository.save(new DeniedToken("active", System.currentTimeMillis() + 1000000));
+
+        sessionPurgeJob.purge();
+        assertEquals(1, deniedTokenRepository.count());
+        assertTrue(deniedTokenRepository.existsById("active"));
+    }
+
+    @Test
+    void leaseOnlyHeldByOneNode() {
+        assertTrue(schedulerLock.tryAcquire("test-job", 60000));
+        // NODE YANG SAMA BOLEH MEMPERPANJANG LEASE
+        assertTrue(schedulerLock.tryAcquire("test-job", 60000));
+
+        long now = System.currentTimeMillis();
+        assertEquals(0, schedulerLeaseRepository.tryAcquire("test-job", "other-node", now, now + 60000));
+
+        schedulerLock.release("test-job");
+        assertEquals(1, schedulerLeaseRepository.tryAcquire("test-job", "other-node", now, now + 60000));
+        assertFalse(schedulerLock.tryAcquire("test-job", 60000));
+    }
+
+    private void createSession(String token, long expiredAt) {
+        Session session = new Session();
+        session.setToken(token);
+        session.setUser(user);
+        session.setExpiredAt(expiredAt);
+        sessionRepository.save(session);
+    }
+}
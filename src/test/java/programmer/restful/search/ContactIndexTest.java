@@ -0,0 +1,125 @@
+package programmer.restful.search;
+
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import programmer.restful.entity.Contact;
+import programmer.restful.entity.SchedulerLease;
+import programmer.restful.entity.User;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.SchedulerLeaseRepository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.security.BCrypt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// INDEX DI FOLDER SENDIRI SUPAYA TIDAK BEREBUT LOCK DENGAN CONTEXT TEST LAIN
+@SpringBootTest(properties = {
+        "app.contact-index.path=${java.io.tmpdir}/spring-restful-api/contact-index-test",
+        "app.contact-index.rebuild-chunk-size=2",
+        "app.session-purge.enabled=false",
+        "app.contact-backfill.enabled=false"
+})
+class ContactIndexTest {
+
+    @Autowired
+    private ContactIndex contactIndex;
+
+    @Autowired
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        contactRespository.deleteAll();
+        userRepository.deleteAll();
+
+        user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        user.setName("Test");
+        userRepository.save(user);
+    }
+
+    @Test
+    void rebuildReadsAllContactsById() throws Exception {
+        // DITULIS TANPA ContactListener, HANYA MASUK INDEX LEWAT REBUILD
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.update("insert into contacts (id, username, first_name) values (?, ?, ?)", "contact-" + i, "test", "Ibnu");
+        }
+        assertEquals(0, contactIndex.search("test", "ibnu", null, null, null, 0, 10, Integer.MAX_VALUE).total());
+
+        contactIndex.rebuild();
+
+        ContactIndex.Hits hits = contactIndex.search("test", "ibnu", null, null, null, 0, 10, Integer.MAX_VALUE);
+        assertEquals(5, hits.total());
+        assertEquals(5, hits.ids().size());
+    }
+
+    private long total(String name) throws Exception {
+        return contactIndex.search("test", name, null, null, null, 0, 10, Integer.MAX_VALUE).total();
+    }
+
+    @Test
+    void accentsAndCaseIgnoredLikeDatabase() throws Exception {
+        Contact contact = new Contact();
+        contact.setUser(user);
+        contact.setId("contact-0");
+        contact.setFirstName("José");
+        contact.setLastName("Müller");
+        contactRespository.save(contact);
+
+        assertEquals(1, total("jose"));
+        assertEquals(1, total("JOSÉ"));
+        assertEquals(1, total("ulle"));
+        assertEquals(1, total("müll"));
+    }
+
+    @Test
+    void rebuiltAfterUncleanShutdown() throws Exception {
+        jdbcTemplate.update("insert into contacts (id, username, first_name) values (?, ?, ?)", "contact-0", "test", "Ibnu");
+        contactIndex.rebuild();
+        assertEquals(1, total("ibnu"));
+
+        // PERUBAHAN YANG BELUM MASUK INDEX SAAT PROSES MATI, JUMLAH CONTACT TETAP SAMA
+        jdbcTemplate.update("update contacts set first_name = ? where id = ?", "Budi", "contact-0");
+
+        // SEPERTI CRASH : WRITER DITUTUP TANPA COMMIT LALU INDEX DIBUKA LAGI
+        ((SearcherManager) ReflectionTestUtils.getField(contactIndex, "searcherManager")).close();
+        ((IndexWriter) ReflectionTestUtils.getField(contactIndex, "writer")).rollback();
+        ((Directory) ReflectionTestUtils.getField(contactIndex, "directory")).close();
+        ReflectionTestUtils.invokeMethod(contactIndex, "init");
+
+        assertEquals(0, total("ibnu"));
+        assertEquals(1, total("budi"));
+    }
+
+    @Test
+    @DirtiesContext
+    void disabledWhenOtherNodeRuns() throws Exception {
+        assertTrue(contactIndex.isEnabled());
+
+        schedulerLeaseRepository.save(new SchedulerLease(ContactIndex.NODE_LEASE_PREFIX + "other", "other", System.currentTimeMillis() + 60000));
+        contactIndex.heartbeat();
+
+        assertFalse(contactIndex.isEnabled());
+        schedulerLeaseRepository.deleteById(ContactIndex.NODE_LEASE_PREFIX + "other");
+    }
+}
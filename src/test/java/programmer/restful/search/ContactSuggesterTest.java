@@ -0,0 +1,184 @@
+package programmer.restful.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import programmer.restful.entity.Contact;
+import programmer.restful.entity.User;
+import programmer.restful.model.ContactSuggestionResponse;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.security.BCrypt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "app.contact-index.enabled=false",
+        "app.session-purge.enabled=false",
+        "app.contact-backfill.enabled=false"
+})
+class ContactSuggesterTest {
+
+    @Autowired
+    private ContactSuggester contactSuggester;
+
+    @SpyBean
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        contactRespository.deleteAll();
+        userRepository.deleteAll();
+        // DATA DI MEMORY TIDAK IKUT TERHAPUS ANTAR TEST
+        ((Map<?, ?>) ReflectionTestUtils.getField(contactSuggester, "users")).clear();
+        ReflectionTestUtils.setField(contactSuggester, "bytes", 0L);
+
+        user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        user.setName("Test");
+        userRepository.save(user);
+        save("test-0", "Ibnu");
+    }
+
+    private void save(String id, String firstName) {
+        save(id, firstName, null);
+    }
+
+    private void save(String id, String firstName, String lastName) {
+        Contact contact = new Contact();
+        contact.setUser(user);
+        contact.setId(id);
+        contact.setFirstName(firstName);
+        contact.setLastName(lastName);
+        contactRespository.save(contact);
+    }
+
+    private void rename(String id, String firstName, String lastName) {
+        Contact contact = contactRespository.findById(id).orElseThrow();
+        contact.setFirstName(firstName);
+        contact.setLastName(lastName);
+        contactRespository.save(contact);
+    }
+
+    private List<List<ContactSuggestionResponse>> suggestAll(String... queries) {
+        List<List<ContactSuggestionResponse>> suggestions = new ArrayList<>();
+        for (String query : queries) {
+            suggestions.add(contactSuggester.suggest("test", query, 20));
+        }
+        return suggestions;
+    }
+
+    @Test
+    void loadDiscardedWhenContactSavedWhileLoading() {
+        // CONTACT BARU COMMIT SETELAH DATA DIBACA TAPI SEBELUM DISIMPAN KE MEMORY
+        List<ContactSuggestionResponse> stale = contactRespository.findSuggestionsByUsername("test");
+        doAnswer(invocation -> {
+            save("test-1", "Ibnu Baru");
+            return stale;
+        }).when(contactRespository).findSuggestionsByUsername(anyString());
+
+        assertEquals(1, contactSuggester.suggest("test", "ibnu", 10).size());
+        reset(contactRespository);
+
+        // HASIL LOAD YANG KETINGGALAN TIDAK DISIMPAN, SUGGEST BERIKUTNYA MEMUAT ULANG DAN MELIHAT CONTACT BARU
+        List<ContactSuggestionResponse> suggestions = contactSuggester.suggest("test", "ibnu", 10);
+        assertEquals(2, suggestions.size());
+
+        // SUDAH DI MEMORY, PERUBAHAN BERIKUTNYA LANGSUNG DITERAPKAN
+        save("test-2", "Ibnu Lagi");
+        assertEquals(3, contactSuggester.suggest("test", "ibnu", 10).size());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        List<ContactSuggestionResponse> contacts = contactRespository.findSuggestionsByUsername("test");
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return contacts;
+        }).when(contactRespository).findSuggestionsByUsername(anyString());
+        clearInvocations(contactRespository);
+
+        double misses = meterRegistry.get("contact.suggest.miss").counter().count();
+        List<Thread> threads = new ArrayList<>();
+        List<List<ContactSuggestionResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                List<ContactSuggestionResponse> result = contactSuggester.suggest("test", "ibnu", 10);
+                synchronized (results) {
+                    results.add(result);
+                }
+            }));
+        }
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (meterRegistry.get("contact.suggest.miss").counter().count() < misses + 4) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+        } finally {
+            release.countDown();
+        }
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        // EMPAT MISS, SATU QUERY
+        verify(contactRespository, times(1)).findSuggestionsByUsername("test");
+        reset(contactRespository);
+        assertEquals(4, results.size());
+        results.forEach(result -> assertEquals(1, result.size()));
+    }
+
+    @Test
+    void incrementalChangesMatchFreshLoad() {
+        save("test-1", "Budi", "Santoso");
+        assertEquals(1, contactSuggester.suggest("test", "budi", 10).size());
+
+        // SEMUA PERUBAHAN DI BAWAH DITERAPKAN KE DATA DI MEMORY TANPA LOAD ULANG
+        save("test-2", "Andi", "Budiman");
+        save("test-3", "Budi", "Santoso");
+        rename("test-0", "Zaki", "Ibnu");
+        rename("test-1", "Santi", null);
+        contactRespository.deleteById("test-3");
+        save("test-4", "Ibnu", "Budi Santoso");
+
+        String[] queries = {"a", "b", "budi", "i", "ibnu", "s", "santo", "z"};
+        List<List<ContactSuggestionResponse>> incremental = suggestAll(queries);
+
+        // ttl NEGATIF : SUGGEST BERIKUTNYA MEMUAT ULANG DARI DATABASE
+        ReflectionTestUtils.setField(contactSuggester, "ttlMs", -1L);
+        try {
+            assertEquals(suggestAll(queries), incremental);
+        } finally {
+            ReflectionTestUtils.setField(contactSuggester, "ttlMs", 300000L);
+        }
+        assertEquals(List.of("test-0", "test-4"), incremental.get(4).stream().map(ContactSuggestionResponse::getId).toList());
+    }
+}
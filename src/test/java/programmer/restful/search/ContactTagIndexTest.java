@@ -0,0 +1,94 @@
+package programmer.restful.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+import programmer.restful.entity.Contact;
+import programmer.restful.entity.ContactTag;
+import programmer.restful.entity.User;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.ContactTagRepository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.security.BCrypt;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(properties = {
+        "app.contact-index.enabled=false",
+        "app.session-purge.enabled=false",
+        "app.contact-backfill.enabled=false"
+})
+class ContactTagIndexTest {
+
+    @Autowired
+    private ContactTagIndex contactTagIndex;
+
+    @SpyBean
+    private ContactTagRepository contactTagRepository;
+
+    @Autowired
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        contactRespository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        user.setName("Test");
+        userRepository.save(user);
+
+        for (int i = 0; i < 2; i++) {
+            Contact contact = new Contact();
+            contact.setUser(user);
+            contact.setId("test-" + i);
+            contact.setFirstName("Ibnu");
+            contactRespository.save(contact);
+        }
+        tag("test-0");
+    }
+
+    // SEPERTI TagService : BARIS DISIMPAN, INDEX DIUBAH SETELAH COMMIT
+    private void tag(String contactId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            contactTagRepository.save(new ContactTag(contactId, "vip"));
+            contactTagIndex.tag("test", contactId, "vip");
+        });
+    }
+
+    private ContactTagIndex.Hits vip() {
+        return contactTagIndex.search("test", List.of("vip"), true, null, 0, 10);
+    }
+
+    @Test
+    void loadDiscardedWhenTaggedWhileLoading() {
+        // TAG BARU COMMIT SETELAH DATA DIBACA TAPI SEBELUM DISIMPAN KE MEMORY
+        List<Object[]> stale = contactTagRepository.findAllByUsername("test");
+        doAnswer(invocation -> {
+            tag("test-1");
+            return stale;
+        }).when(contactTagRepository).findAllByUsername(anyString());
+
+        assertEquals(1, vip().total());
+        reset(contactTagRepository);
+
+        // HASIL LOAD YANG KETINGGALAN TIDAK DISIMPAN, SEARCH BERIKUTNYA MEMUAT ULANG DAN MELIHAT TAG BARU
+        assertEquals(List.of("test-0", "test-1"), vip().ids());
+    }
+}
@@ -0,0 +1,45 @@
+package programmer.restful.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BCryptTest {
+
+    // HASIL DARI IMPLEMENTASI SEBELUMNYA, OUTPUT HARUS TETAP SAMA PERSIS
+    private static final String[][] VECTORS = {
+            {"YswtJphWNUDTXSwolkbApJIUlBfAzAhRWzLRAmrF+RS2iHvfSjjzmNI=", "$2b$04$cOc/qNeguHtkYy.VMcOJQewBvszYYiUdxtDlbuEbsh4dNVytvndvG"},
+            {"dSZMalFabjJVP01EOj4/UFRDfkpSPTl5UmF4VjpAMj9ueEppQm1NSVU7SSxK", "$2a$05$QKE5BpLOEFqOSqEM8uMZMeRncXIVV39eBS9pnrC.mPs6KzsdUP3Qu"},
+            {"jbxXZ9JUoCM92npfSPywsqn8t+KLbRIAN2moICqrgUEBAdgbeICexoWFrq4yFeZhimOfBgZl6iJTVnP7eNuin/+PBA==", "$2x$05$TPWRkifHHiJd.tJK2030qeqJAsuk75hTDFu71cB6gOU2WulQjYHae"},
+            {"3Jew45pP7FEAo/7KpsrSDR3K4tZ8L/NdKrbqqaHyUG1nOLAdbkXPbyyjSLppuSLsK2StaJPL9oSBgj55v0Vu2duWSESx", "$2y$04$89OUE9QRkFddOr7DN1tT4uAoGtdnpoX7LHpbrxpsEgDVTn0w3fZEe"},
+            {"1jIMN/mQ41g=", "$2$05$3rFRzpxFG9WiTZoLPjQ2v.F9gfCR2mXi3GQom4OPn.fl/vt50xr0q"},
+            {"c2VjcmV0", "$2a$10$abcdefghijklmnopqrstuuqflPDzB6gcMhKa1rZqKiun2YGL5sa2u"},
+    };
+
+    @Test
+    void hashpwMatchesKnownVectors() {
+        for (String[] vector : VECTORS) {
+            byte[] password = Base64.getDecoder().decode(vector[0]);
+            String salt = vector[1].substring(0, vector[1].lastIndexOf('$') + 23);
+
+            assertEquals(vector[1], BCrypt.hashpw(password, salt));
+            assertTrue(BCrypt.checkpw(password, vector[1]));
+        }
+    }
+
+    @Test
+    void checkpwRejectsWrongPassword() {
+        String hash = BCrypt.hashpw("rahasia", BCrypt.gensalt(4));
+
+        assertTrue(BCrypt.checkpw("rahasia", hash));
+        assertFalse(BCrypt.checkpw("rahasiaa", hash));
+        assertFalse(BCrypt.checkpw("", hash));
+    }
+
+    @Test
+    void gensaltIsRandom() {
+        assertNotEquals(BCrypt.gensalt(), BCrypt.gensalt());
+    }
+}
@@ -0,0 +1,63 @@
+package programmer.restful.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RejectedTokenCacheTest {
+
+    private RejectedTokenCache cache(int maxSize) {
+        RejectedTokenCache cache = new RejectedTokenCache();
+        ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 30L);
+        return cache;
+    }
+
+    @Test
+    void fullCacheEvictsAndKeepsAcceptingTokens() {
+        RejectedTokenCache cache = cache(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.add("token-" + i);
+            // TOKEN TERBARU SELALU MASUK, BUKAN DIABAIKAN SETELAH PENUH
+            assertTrue(cache.contains("token-" + i));
+            assertTrue(cache.size() <= 100);
+        }
+    }
+
+    @Test
+    void expiredEntriesEvictedFirst() {
+        RejectedTokenCache cache = cache(2);
+        cache.add("lama");
+        ReflectionTestUtils.setField(cache, "ttlSeconds", -1L);
+        cache.add("expired");
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 30L);
+
+        cache.add("baru");
+        assertTrue(cache.contains("lama"));
+        assertTrue(cache.contains("baru"));
+        assertFalse(cache.contains("expired"));
+    }
+
+    @Test
+    void concurrentAddsStayNearLimit() throws Exception {
+        RejectedTokenCache cache = cache(64);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    cache.add("token-" + offset + "-" + i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // SEDIKIT LEWAT BATAS BOLEH SAAT ADD BERSAMAAN, TIDAK TERUS BERTAMBAH
+        assertTrue(cache.size() <= 64 + 8);
+    }
+}
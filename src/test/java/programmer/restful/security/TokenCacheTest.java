@@ -0,0 +1,82 @@
+package programmer.restful.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import programmer.restful.model.UserPrincipal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenCacheTest {
+
+    private TokenCache cache(int maxSize) {
+        TokenCache cache = new TokenCache();
+        ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        return cache;
+    }
+
+    private UserPrincipal principal(String token) {
+        return new UserPrincipal("test", "Test", System.currentTimeMillis() + 60000, token);
+    }
+
+    @Test
+    void fullCacheEvictsAndKeepsAcceptingTokens() {
+        TokenCache cache = cache(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("token-" + i, principal("token-" + i));
+            assertNotNull(cache.get("token-" + i));
+            assertTrue(cache.size() <= 100);
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedSampleEvicted() throws Exception {
+        // SAMPEL (8) LEBIH BESAR DARI CACHE, JADI YANG DIBUANG PASTI YANG PALING LAMA TIDAK DIPAKAI
+        TokenCache cache = cache(4);
+        for (String token : List.of("a", "b", "c", "d")) {
+            cache.put(token, principal(token));
+            Thread.sleep(2);
+        }
+        assertNotNull(cache.get("a"));
+
+        cache.put("e", principal("e"));
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("e"));
+    }
+
+    @Test
+    void concurrentReadsAndWrites() throws Exception {
+        TokenCache cache = cache(64);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        String token = "token-" + ((i * 8 + offset) % 200);
+                        if (cache.get(token) == null) {
+                            cache.put(token, principal(token));
+                        }
+                        if (i % 100 == 0) {
+                            cache.invalidateUser("lain");
+                        }
+                    }
+                } catch (RuntimeException exception) {
+                    failed.set(true);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed.get());
+        // SEDIKIT LEWAT BATAS BOLEH SAAT PUT BERSAMAAN, TIDAK TERUS BERTAMBAH
+        assertTrue(cache.size() <= 64 + 8);
+    }
+}
@@ -0,0 +1,44 @@
+package programmer.restful.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenSignerTest {
+
+    private TokenSigner signer(String format, String secret) {
+        TokenSigner signer = new TokenSigner();
+        ReflectionTestUtils.setField(signer, "format", format);
+        ReflectionTestUtils.setField(signer, "secret", secret);
+        return signer;
+    }
+
+    @Test
+    void signedFormatRequiresSecret() {
+        assertThrows(IllegalStateException.class, () -> signer("signed", "").init());
+        assertThrows(IllegalStateException.class, () -> signer("signed", "pendek").init());
+    }
+
+    @Test
+    void opaqueFormatWithoutSecretRejectsSignedTokens() {
+        TokenSigner signer = signer("opaque", "");
+        signer.init();
+
+        TokenSigner other = signer("signed", "rahasia-test-yang-panjangnya-minimal-32-byte");
+        other.init();
+
+        assertNull(signer.verify(other.sign("test", Long.MAX_VALUE)));
+    }
+
+    @Test
+    void verifyRejectsTamperedToken() {
+        TokenSigner signer = signer("signed", "rahasia-test-yang-panjangnya-minimal-32-byte");
+        signer.init();
+
+        String token = signer.sign("test", 1000L);
+        assertEquals(new TokenSigner.Claims("test", 1000L), signer.verify(token));
+        assertNull(signer.verify(token.replace(".1000.", ".9999.")));
+        assertNull(signer.verify(token.substring(0, token.length() - 2)));
+    }
+}
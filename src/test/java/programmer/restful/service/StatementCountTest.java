@@ -0,0 +1,231 @@
+package programmer.restful.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.server.ResponseStatusException;
+import programmer.restful.entity.Address;
+import programmer.restful.entity.Contact;
+import programmer.restful.entity.ContactTag;
+import programmer.restful.entity.Session;
+import programmer.restful.entity.User;
+import programmer.restful.model.CreateAddressRequest;
+import programmer.restful.model.CreateContactRequest;
+import programmer.restful.model.LoginUserRequest;
+import programmer.restful.model.RegisterUserRequest;
+import programmer.restful.model.SearchContactRequest;
+import programmer.restful.model.UpdateAddressRequest;
+import programmer.restful.model.UpdateContactRequest;
+import programmer.restful.model.UpdateUserRequest;
+import programmer.restful.model.UserPrincipal;
+import programmer.restful.repository.AddressRepository;
+import programmer.restful.repository.ContactRespository;
+import programmer.restful.repository.ContactTagRepository;
+import programmer.restful.repository.SessionRepository;
+import programmer.restful.repository.UserCounterRepository;
+import programmer.restful.repository.UserRepository;
+import programmer.restful.security.BCrypt;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// JUMLAH STATEMENT SQL SETIAP METHOD SERVICE, DIHITUNG DARI STATISTIK HIBERNATE
+// JOB DAN INDEX YANG BISA MENJALANKAN SQL DI BACKGROUND DIMATIKAN SUPAYA HITUNGAN PASTI
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.session-purge.enabled=false",
+        "app.contact-backfill.enabled=false",
+        "app.contact-index.enabled=false",
+        "app.token-filter.enabled=false",
+        "app.password-hash.log-rounds=4",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=programmer.restful.service.StatementCountTest$SqlRecorder"
+})
+class StatementCountTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private ContactRespository contactRespository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ContactTagRepository contactTagRepository;
+
+    @Autowired
+    private UserCounterRepository userCounterRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    // MENYIMPAN SQL YANG DIKIRIM, UNTUK MENGECEK ISI UPDATE DARI PATCH
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+
+    private final UserPrincipal principal = new UserPrincipal("test", "Test", Long.MAX_VALUE, "test");
+
+    @BeforeEach
+    void setUp() {
+        contactTagRepository.deleteAll();
+        addressRepository.deleteAll();
+        contactRespository.deleteAll();
+        sessionRepository.deleteAll();
+        userCounterRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        user.setName("Test");
+        userRepository.save(user);
+
+        Session session = new Session();
+        session.setToken("test");
+        session.setUser(user);
+        session.setExpiredAt(Long.MAX_VALUE);
+        sessionRepository.save(session);
+
+        Contact contact = new Contact();
+        contact.setId("test");
+        contact.setUser(user);
+        contact.setFirstName("Ibnu");
+        contact.setLastName("Rabbani");
+        contactRespository.save(contact);
+
+        Address address = new Address();
+        address.setId("test");
+        address.setContact(contact);
+        address.setCountry("Indonesia");
+        addressRepository.save(address);
+
+        contactTagRepository.save(new ContactTag("test", "vip"));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private void assertStatements(long expected, Runnable operation) {
+        statistics.clear();
+        SqlRecorder.SQL.clear();
+        operation.run();
+        assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+
+    private void assertUpdateColumns(String table, String... columns) {
+        String update = SqlRecorder.SQL.stream()
+                .filter(sql -> sql.startsWith("update " + table))
+                .findFirst()
+                .orElseThrow();
+        String set = update.substring(update.indexOf(" set ") + 5, update.indexOf(" where ")).replace(" ", "");
+        assertEquals(List.of(columns), List.of(set.split(",")).stream().map(column -> column.replace("?", "")).sorted().toList());
+    }
+
+    @Test
+    void userService() {
+        assertStatements(3, () -> userService.register(RegisterUserRequest.builder()
+                .username("baru").password("rahasia").name("Baru").build()));
+        assertStatements(0, () -> userService.get(principal));
+        assertStatements(2, () -> userService.update(principal, UpdateUserRequest.builder().name("Ganti").build()));
+    }
+
+    @Test
+    void authService() {
+        assertStatements(2, () -> authService.login(LoginUserRequest.builder()
+                .username("test").password("rahasia").build()));
+        assertStatements(1, () -> authService.logout(principal));
+    }
+
+    @Test
+    void contactService() {
+        assertStatements(2, () -> contactService.create(principal, CreateContactRequest.builder()
+                .firstName("Budi").build()));
+        assertStatements(1, () -> contactService.get(principal, "test"));
+        assertStatements(1, () -> contactService.update(principal, UpdateContactRequest.builder()
+                .id("test").firstName("Joko").build()));
+        assertStatements(1, () -> contactService.update(principal, UpdateContactRequest.builder()
+                .id("test").firstName("Joko").version(1L).build()));
+        // VERSION LAMA : UPDATE GAGAL LALU CEK CONTACT ADA UNTUK MEMBEDAKAN 412 DAN 404
+        assertStatements(2, () -> assertThrows(ResponseStatusException.class, () -> contactService.update(principal,
+                UpdateContactRequest.builder().id("test").firstName("Joko").version(1L).build())));
+        assertStatements(2, () -> contactService.search(principal, SearchContactRequest.builder()
+                .page(0).size(10).build()));
+        assertStatements(1, () -> contactService.search(principal, SearchContactRequest.builder()
+                .name("Joko").total("false").page(0).size(10).build()));
+        assertStatements(1, () -> contactService.suggest(principal, "jo", 5));
+        // PATCH : SELECT LALU UPDATE YANG HANYA BERISI KOLOM YANG BERUBAH
+        assertStatements(2, () -> contactService.patch(principal, "test",
+                objectMapper.createObjectNode().put("email", "joko@example.com"), 2L));
+        assertUpdateColumns("contacts", "email=", "email_normalized=", "version=");
+        assertStatements(1, () -> contactService.patch(principal, "test",
+                objectMapper.createObjectNode().put("email", "joko@example.com"), null));
+
+        addressRepository.deleteAll();
+        assertStatements(3, () -> contactService.delete(principal, "test"));
+    }
+
+    @Test
+    void addressService() {
+        assertStatements(3, () -> addressService.create(principal, CreateAddressRequest.builder()
+                .idContact("test").country("Indonesia").build()));
+        assertStatements(1, () -> addressService.get(principal, "test", "test"));
+        assertStatements(1, () -> addressService.list(principal, "test"));
+        assertStatements(1, () -> addressService.update(principal, UpdateAddressRequest.builder()
+                .idContact("test").idAddress("test").country("Malaysia").build()));
+        assertStatements(1, () -> addressService.update(principal, UpdateAddressRequest.builder()
+                .idContact("test").idAddress("test").country("Malaysia").version(1L).build()));
+        assertStatements(2, () -> addressService.patch(principal, "test", "test",
+                objectMapper.createObjectNode().put("city", "Kuala Lumpur"), 2L));
+        assertUpdateColumns("addresses", "city=", "version=");
+        assertStatements(1, () -> addressService.patch(principal, "test", "test",
+                objectMapper.createObjectNode().put("city", "Kuala Lumpur"), null));
+        assertStatements(2, () -> addressService.remove(principal, "test", "test"));
+    }
+
+    @Test
+    void tagService() {
+        assertStatements(2, () -> tagService.list(principal, "test"));
+        assertStatements(3, () -> tagService.add(principal, "test", "family"));
+        assertStatements(2, () -> tagService.remove(principal, "test", "family"));
+    }
+}